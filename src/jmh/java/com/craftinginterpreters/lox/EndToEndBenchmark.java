@@ -0,0 +1,82 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EndToEndBenchmark — Pipeline completo sobre os programas .lox do repositório.
+ *
+ * Cada operação faz scan, parse, resolve e execução com um Interpreter novo,
+ * como 'jlox arquivo.lox', no interpretador de árvore ou na VM (--vm).
+ * Os arquivos são lidos do diretório dado pela propriedade 'lox.dir'
+ * (padrão: diretório atual, a raiz do projeto).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    @Param({"classes_completo.lox", "logica_e_fluxo.lox"})
+    public String program;
+
+    @Param({"tree", "vm"})
+    public String engine;
+
+    private String source;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setup() throws IOException {
+        Path path = Paths.get(System.getProperty("lox.dir", "."), program);
+        source = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+
+        // Os programas de exemplo imprimem; a escrita no console não é medida.
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public Interpreter run() {
+        Interpreter interpreter = new Interpreter();
+
+        TokenBuffer tokens = new Scanner(source).scan();
+        List<Stmt> statements = new Parser(tokens).parse();
+        new Resolver(interpreter).resolve(statements);
+        if (Lox.hadError) throw new IllegalStateException(program + " has errors");
+
+        if (engine.equals("vm")) {
+            new VM(interpreter).interpret(statements);
+        } else {
+            interpreter.interpret(statements);
+        }
+        return interpreter;
+    }
+}
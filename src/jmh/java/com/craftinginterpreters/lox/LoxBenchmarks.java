@@ -0,0 +1,28 @@
+package com.craftinginterpreters.lox;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * LoxBenchmarks — Ponto de entrada do benchmarks.jar.
+ *
+ * Aceita as mesmas opções de linha de comando do JMH (ex.: "PhaseBenchmark.scan",
+ * "-p size=large", "-rf json") e sempre ativa o profiler de GC, para que cada
+ * resultado traga a alocação por operação (gc.alloc.rate.norm) junto da vazão.
+ */
+public final class LoxBenchmarks {
+
+    private LoxBenchmarks() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * LoxCorpus — Gerador do corpus sintético usado pelos benchmarks JMH.
+ *
+ * Cada "unidade" é um trecho de Lox com classe, métodos, função recursiva,
+ * laço, strings e comentários, com nomes únicos (sufixo _i) para que o
+ * programa inteiro seja válido. O tamanho do corpus é o número de unidades.
+ *
+ * O programa gerado não imprime nada: o custo medido é o do pipeline, não o
+ * de escrita em System.out.
+ */
+final class LoxCorpus {
+
+    private LoxCorpus() {}
+
+    /**
+     * Número de unidades para cada tamanho aceito por @Param("size").
+     */
+    static int units(String size) {
+        switch (size) {
+            case "small":  return 20;      // ~14 KB
+            case "medium": return 2_000;   // ~1,4 MB
+            case "large":  return 20_000;  // ~14 MB
+            default:
+                throw new IllegalArgumentException("Unknown corpus size: " + size);
+        }
+    }
+
+    static String generate(String size) {
+        return generate(units(size));
+    }
+
+    static String generate(int units) {
+        StringBuilder source = new StringBuilder(units * 640);
+        for (int i = 0; i < units; i++) {
+            unit(source, i);
+        }
+        return source.toString();
+    }
+
+    private static void unit(StringBuilder out, int i) {
+        out.append("// Unidade ").append(i).append(": classe, closure e laços.\n");
+        out.append("class Ponto_").append(i).append(" {\n");
+        out.append("  init(x, y) { this.x = x; this.y = y; }\n");
+        out.append("  soma() { return this.x + this.y; }\n");
+        out.append("  escala(k) { return Ponto_").append(i).append("(this.x * k, this.y * k); }\n");
+        out.append("}\n");
+        out.append("fun fib_").append(i).append("(n) {\n");
+        out.append("  if (n < 2) return n;\n");
+        out.append("  return fib_").append(i).append("(n - 1) + fib_").append(i).append("(n - 2);\n");
+        out.append("}\n");
+        out.append("fun contador_").append(i).append("() {\n");
+        out.append("  var c = 0;\n");
+        out.append("  fun inc() { c = c + 1; return c; }\n");
+        out.append("  return inc;\n");
+        out.append("}\n");
+        out.append("var total_").append(i).append(" = 0;\n");
+        out.append("var conta_").append(i).append(" = contador_").append(i).append("();\n");
+        out.append("for (var k = 0; k < 10; k = k + 1) {\n");
+        out.append("  var p = Ponto_").append(i).append("(k, ").append(i).append(").escala(2);\n");
+        out.append("  total_").append(i).append(" = total_").append(i)
+                .append(" + p.soma() + fib_").append(i).append("(5) + conta_").append(i).append("();\n");
+        out.append("}\n");
+        out.append("var texto_").append(i).append(" = \"unidade \" + \"").append(i).append("\";\n");
+        out.append("if (texto_").append(i).append(" == \"unidade ").append(i)
+                .append("\" and total_").append(i).append(" > 0) { total_").append(i).append(" = -total_")
+                .append(i).append("; } else { total_").append(i).append(" = nil; }\n\n");
+    }
+}
@@ -0,0 +1,96 @@
+package com.craftinginterpreters.lox;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PhaseBenchmark — Uma medição por fase do pipeline, sobre o corpus gerado.
+ *
+ * Cada fase recebe a saída da anterior já pronta (preparada no @Setup), de
+ * modo que scan, parse, resolve e interpret são medidos isoladamente:
+ *  - scan:      Scanner.scan
+ *  - parse:     Parser.parse
+ *  - resolve:   Resolver.resolve
+ *  - interpret: Interpreter.interpret (inclui a compilação para nós)
+ *
+ * Rodar com o profiler de GC (padrão em LoxBenchmarks) para obter
+ * gc.alloc.rate.norm — bytes alocados por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhaseBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    private String source;
+    private TokenBuffer tokens;
+    private List<Stmt> statements;
+    private Interpreter interpreter;
+
+    private PrintStream originalOut;
+
+    @Setup
+    public void setup() {
+        source = LoxCorpus.generate(size);
+        tokens = new Scanner(source).scan();
+        statements = new Parser(tokens).parse();
+
+        interpreter = new Interpreter();
+        new Resolver(interpreter).resolve(statements);
+        if (Lox.hadError) {
+            throw new IllegalStateException("Generated corpus has errors (" + size + ")");
+        }
+
+        // O corpus não imprime, mas por garantia nada vai para o console.
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    @Benchmark
+    public TokenBuffer scan() {
+        return new Scanner(source).scan();
+    }
+
+    @Benchmark
+    public List<Stmt> parse() {
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public List<Stmt> resolve() {
+        // Resolver só anota os nós; reresolver a mesma árvore é idempotente.
+        new Resolver(interpreter).resolve(statements);
+        return statements;
+    }
+
+    @Benchmark
+    public Interpreter interpret() {
+        interpreter.interpret(statements);
+        return interpreter;
+    }
+}
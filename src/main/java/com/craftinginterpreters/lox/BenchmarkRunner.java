@@ -0,0 +1,332 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * BenchmarkRunner — Modos --bench e --compare do jlox.
+ *
+ * --bench executa cada programa do corpus (por padrão, o diretório benchmarks/)
+ * várias vezes na mesma JVM já aquecida, sempre com um Interpreter novo, e grava
+ * um relatório JSON com os tempos mínimo, mediano e p99 de cada programa.
+ *
+ * --compare lê dois relatórios (base e candidato), mostra a variação da mediana
+ * de cada programa e sinaliza as que ficaram mais lentas que o limite; nesse
+ * caso o código de saída é 1, para uso em scripts de CI.
+ *
+ *   jlox --bench [--vm] [--runs N] [--warmup N] [--out relatorio.json] [dir|arquivo.lox...]
+ *   jlox --compare base.json candidato.json [--threshold PCT]
+ */
+final class BenchmarkRunner {
+
+    private static final String USAGE =
+            "Usage: jlox --bench [--vm] [--runs N] [--warmup N] [--out report.json] [dir|file.lox...]\n"
+            + "       jlox --compare baseline.json candidate.json [--threshold PCT]";
+
+    private BenchmarkRunner() {}
+
+    /** Resultado de um programa: tempos em milissegundos. */
+    private static final class Result {
+        final String name;
+        final double min;
+        final double median;
+        final double p99;
+
+        Result(String name, double min, double median, double p99) {
+            this.name = name;
+            this.min = min;
+            this.median = median;
+            this.p99 = p99;
+        }
+    }
+
+    /**
+     * Ponto de entrada a partir de Lox.main; retorna o código de saída.
+     */
+    static int main(String[] args) throws IOException {
+        try {
+            if (args[0].equals("--bench")) return bench(args);
+            return compare(args);
+        } catch (IllegalArgumentException error) {
+            System.err.println(error.getMessage());
+            System.out.println(USAGE);
+            return 64; // EX_USAGE, como em Lox.usage()
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // --bench
+    // -------------------------------------------------------------------------
+
+    private static int bench(String[] args) throws IOException {
+        boolean useVm = false;
+        int runs = 10;
+        int warmup = 3;
+        String out = "bench-report.json";
+        List<String> targets = new ArrayList<>();
+
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--vm":     useVm = true; break;
+                case "--runs":   runs = positive(args, ++i); break;
+                case "--warmup": warmup = count(args, ++i); break;
+                case "--out":    out = value(args, ++i); break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                    }
+                    targets.add(args[i]);
+            }
+        }
+        if (targets.isEmpty()) targets.add("benchmarks");
+
+        List<Path> programs = programs(targets);
+        if (programs.isEmpty()) {
+            throw new IllegalArgumentException("No .lox programs found in " + targets);
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (Path program : programs) {
+            Result result = measure(program, useVm, warmup, runs);
+            if (result == null) return Lox.hadError ? 65 : 70;
+            results.add(result);
+            System.out.printf(Locale.ROOT, "%-20s min %10.3f ms  median %10.3f ms  p99 %10.3f ms%n",
+                    result.name, result.min, result.median, result.p99);
+        }
+
+        Files.write(Paths.get(out), toJson(results, useVm, runs, warmup)
+                .getBytes(StandardCharsets.UTF_8));
+        System.out.println("Report written to " + out);
+        return 0;
+    }
+
+    /**
+     * Roda o programa 'warmup' vezes sem medir e 'runs' vezes medindo o pipeline
+     * completo (scan, parse, resolve e execução). A saída do programa é descartada.
+     * Retorna null se o programa tiver erros (já reportados por Lox).
+     */
+    private static Result measure(Path program, boolean useVm, int warmup, int runs)
+            throws IOException {
+        String source = new String(Files.readAllBytes(program), StandardCharsets.UTF_8);
+        String name = program.getFileName().toString().replaceFirst("\\.lox$", "");
+        double[] times = new double[runs];
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int i = 0; i < warmup + runs; i++) {
+                Interpreter interpreter = new Interpreter();
+                VM vm = useVm ? new VM(interpreter) : null;
+
+                long start = System.nanoTime();
+                Lox.run(source, interpreter, vm);
+                long elapsed = System.nanoTime() - start;
+
+                if (Lox.hadError || Lox.hadRuntimeError) {
+                    System.err.println("Benchmark " + name + " failed.");
+                    return null;
+                }
+                if (i >= warmup) times[i - warmup] = elapsed / 1_000_000.0;
+            }
+        } finally {
+            System.setOut(console);
+        }
+
+        Arrays.sort(times);
+        return new Result(name, times[0], median(times), percentile(times, 99));
+    }
+
+    private static List<Path> programs(List<String> targets) throws IOException {
+        List<Path> programs = new ArrayList<>();
+        for (String target : targets) {
+            Path path = Paths.get(target);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    files.filter(file -> file.toString().endsWith(".lox"))
+                            .sorted()
+                            .forEach(programs::add);
+                }
+            } else {
+                programs.add(path);
+            }
+        }
+        return programs;
+    }
+
+    private static double median(double[] sorted) {
+        int middle = sorted.length / 2;
+        if (sorted.length % 2 == 1) return sorted[middle];
+        return (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /** Percentil pelo método do posto mais próximo (nearest-rank). */
+    private static double percentile(double[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    /**
+     * Um objeto por linha em "benchmarks", no formato lido por readReport.
+     */
+    private static String toJson(List<Result> results, boolean useVm, int runs, int warmup) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"engine\": \"").append(useVm ? "vm" : "tree").append("\",\n");
+        json.append("  \"runs\": ").append(runs).append(",\n");
+        json.append("  \"warmup\": ").append(warmup).append(",\n");
+        json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"benchmarks\": [\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            json.append(String.format(Locale.ROOT,
+                    "    {\"name\": \"%s\", \"min_ms\": %.3f, \"median_ms\": %.3f, \"p99_ms\": %.3f}",
+                    result.name, result.min, result.median, result.p99));
+            json.append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    // -------------------------------------------------------------------------
+    // --compare
+    // -------------------------------------------------------------------------
+
+    private static final Pattern ENTRY = Pattern.compile("\\{[^{}]*\"name\"[^{}]*\\}");
+    private static final Pattern FIELD =
+            Pattern.compile("\"(\\w+)\"\\s*:\\s*(?:\"([^\"]*)\"|([-+0-9.eE]+))");
+
+    private static int compare(String[] args) throws IOException {
+        List<String> files = new ArrayList<>();
+        double threshold = 5.0;
+
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--threshold")) {
+                String text = value(args, ++i);
+                try {
+                    threshold = Double.parseDouble(text);
+                } catch (NumberFormatException error) {
+                    throw new IllegalArgumentException("Invalid threshold " + text);
+                }
+            } else if (args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + args[i]);
+            } else {
+                files.add(args[i]);
+            }
+        }
+        if (files.size() != 2) {
+            throw new IllegalArgumentException("--compare needs two reports");
+        }
+
+        Map<String, Result> baseline = readReport(Paths.get(files.get(0)));
+        Map<String, Result> candidate = readReport(Paths.get(files.get(1)));
+
+        System.out.printf(Locale.ROOT, "%-20s %14s %14s %9s%n",
+                "benchmark", "baseline (ms)", "candidate (ms)", "change");
+
+        int slower = 0;
+        for (Result before : baseline.values()) {
+            Result after = candidate.get(before.name);
+            if (after == null) {
+                System.out.printf(Locale.ROOT, "%-20s %14.3f %14s%n", before.name, before.median, "-");
+                continue;
+            }
+
+            double change = (after.median - before.median) / before.median * 100.0;
+            boolean regression = change > threshold;
+            if (regression) slower++;
+            System.out.printf(Locale.ROOT, "%-20s %14.3f %14.3f %+8.2f%%%s%n",
+                    before.name, before.median, after.median, change,
+                    regression ? "  SLOWER" : "");
+        }
+        for (Result after : candidate.values()) {
+            if (!baseline.containsKey(after.name)) {
+                System.out.printf(Locale.ROOT, "%-20s %14s %14.3f%n", after.name, "-", after.median);
+            }
+        }
+
+        if (slower > 0) {
+            System.out.printf(Locale.ROOT, "%d benchmark(s) slower than the %.1f%% threshold.%n",
+                    slower, threshold);
+            return 1;
+        }
+        System.out.printf(Locale.ROOT, "No slowdowns past the %.1f%% threshold.%n", threshold);
+        return 0;
+    }
+
+    /**
+     * Lê um relatório gravado por --bench (nome → resultado, na ordem do arquivo).
+     */
+    private static Map<String, Result> readReport(Path path) throws IOException {
+        String json = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        Map<String, Result> results = new LinkedHashMap<>();
+
+        Matcher entry = ENTRY.matcher(json);
+        while (entry.find()) {
+            Map<String, String> fields = new LinkedHashMap<>();
+            Matcher field = FIELD.matcher(entry.group());
+            while (field.find()) {
+                fields.put(field.group(1), field.group(2) != null ? field.group(2) : field.group(3));
+            }
+
+            String name = fields.get("name");
+            try {
+                results.put(name, new Result(name,
+                        Double.parseDouble(fields.get("min_ms")),
+                        Double.parseDouble(fields.get("median_ms")),
+                        Double.parseDouble(fields.get("p99_ms"))));
+            } catch (NullPointerException | NumberFormatException error) {
+                throw new IllegalArgumentException("Malformed entry '" + name + "' in " + path);
+            }
+        }
+
+        if (results.isEmpty()) {
+            throw new IllegalArgumentException("No benchmarks in " + path);
+        }
+        return results;
+    }
+
+    // -------------------------------------------------------------------------
+    // Opções
+    // -------------------------------------------------------------------------
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    private static int count(String[] args, int index) {
+        String text = value(args, index);
+        try {
+            int value = Integer.parseInt(text);
+            if (value >= 0) return value;
+        } catch (NumberFormatException error) {
+            // Reportado abaixo.
+        }
+        throw new IllegalArgumentException("Invalid value for " + args[index - 1] + ": " + text);
+    }
+
+    private static int positive(String[] args, int index) {
+        int value = count(args, index);
+        if (value == 0) {
+            throw new IllegalArgumentException("Invalid value for " + args[index - 1] + ": 0");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,509 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BytecodeCompiler — Compilador da AST resolvida para bytecode.
+ *
+ * Percorre as árvores Stmt/Expr (já anotadas pelo Resolver com profundidade e
+ * slot de cada variável) e emite instruções de OpCode em Chunks executados pela VM.
+ * Cada função gera seu próprio Chunk, guardado como constante do Chunk que a declara.
+ *
+ * As variáveis locais vivem na pilha de operandos, como na clox: o valor de
+ * uma declaração fica no slot em que foi calculado, e o (profundidade, slot)
+ * do Resolver é traduzido aqui para um slot relativo à base do frame. Uma
+ * variável de uma função externa vira upvalue da closure, e só as variáveis
+ * capturadas são fechadas (copiadas para a Upvalue) ao fim do seu escopo.
+ *
+ * Referências:
+ *  - Crafting Interpreters — Cap. 17 (Compiling Expressions)
+ *  - Crafting Interpreters — Cap. 22 (Local Variables)
+ *  - Crafting Interpreters — Cap. 23 (Jumping Back and Forth)
+ *  - Crafting Interpreters — Cap. 24 (Calls and Functions)
+ *  - Crafting Interpreters — Cap. 25 (Closures)
+ */
+class BytecodeCompiler implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+
+    /** Tabela global compartilhada com o Interpreter (índices das globais). */
+    private final Environment globals;
+
+    /**
+     * Função sendo compilada: as variáveis que ela captura das funções
+     * externas (ver Chunk.captures).
+     */
+    private static final class FunctionState {
+        final FunctionState enclosing;
+        final List<Integer> captures = new ArrayList<>();
+
+        FunctionState(FunctionState enclosing) {
+            this.enclosing = enclosing;
+        }
+    }
+
+    /**
+     * Escopo local, na mesma correspondência um-para-um com os escopos do
+     * Resolver (funções e blocos que declaram algo). O slot i do Resolver
+     * fica no slot 'first + i' do frame de 'function'.
+     */
+    private static final class Scope {
+        final Scope enclosing;
+        final FunctionState function;
+        final int first;
+        final boolean[] captured;
+
+        Scope(Scope enclosing, FunctionState function, int first, int size) {
+            this.enclosing = enclosing;
+            this.function = function;
+            this.first = first;
+            this.captured = new boolean[size];
+        }
+    }
+
+    /** Chunk sendo emitido no momento. */
+    private Chunk chunk;
+
+    /** Função e escopo atuais; o escopo é nulo no topo (declarações globais). */
+    private FunctionState function = new FunctionState(null);
+    private Scope scope = null;
+
+    /**
+     * Altura atual da pilha no ponto de emissão, a partir da base do frame.
+     * Entre statements é o número de slots ocupados por locais.
+     */
+    private int stackDepth = 0;
+
+    BytecodeCompiler(Environment globals) {
+        this.globals = globals;
+    }
+
+    /**
+     * Compila um programa (lista de declarações de topo) em um Chunk de script.
+     */
+    Chunk compile(List<Stmt> statements) {
+        chunk = new Chunk(null, false);
+        // O slot 0 do frame do script é reservado, como o da função chamada.
+        stackDepth = 1;
+        chunk.maxStack = 1;
+        for (Stmt statement : statements) {
+            compile(statement);
+        }
+        emit(OpCode.NIL);
+        emit(OpCode.RETURN);
+        return chunk.finish();
+    }
+
+    // -------------------------------------------------------------------------
+    // Statements
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        // Bloco sem declarações: o Resolver não abriu escopo para ele.
+        if (stmt.localCount == 0) {
+            for (Stmt statement : stmt.statements) {
+                compile(statement);
+            }
+            return null;
+        }
+
+        scope = new Scope(scope, function, stackDepth, stmt.localCount);
+        for (Stmt statement : stmt.statements) {
+            compile(statement);
+        }
+
+        // Descarta os locais do bloco; se algum foi capturado, fecha antes
+        // as upvalues, e cada execução do bloco terá variáveis novas.
+        boolean captured = false;
+        for (boolean local : scope.captured) captured |= local;
+        emit(captured ? OpCode.CLOSE_SCOPE : OpCode.POP_SCOPE, stmt.localCount);
+        stackDepth -= stmt.localCount;
+        scope = scope.enclosing;
+        return null;
+    }
+
+    @Override
+    public Void visitClassStmt(Stmt.Class stmt) {
+        emit(OpCode.CLASS, chunk.addConstant(stmt.name.lexeme()), stmt.methods.size());
+        for (Stmt.Function method : stmt.methods) {
+            chunk.write(chunk.addConstant(function(method, true)));
+        }
+        defineVariable(stmt.name);
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        // Atribuição como statement: grava e descarta em uma única instrução.
+        if (stmt.expression instanceof Expr.Assign assign) {
+            compile(assign.value);
+            if (assign.depth >= 0) {
+                emitLocal(OpCode.STORE_LOCAL, OpCode.STORE_UPVALUE, assign.depth, assign.slot);
+            } else {
+                emit(OpCode.STORE_GLOBAL, assign.slot, chunk.addConstant(assign.name));
+            }
+            return null;
+        }
+
+        compile(stmt.expression);
+        emit(OpCode.POP);
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        emit(OpCode.CLOSURE, chunk.addConstant(function(stmt, false)));
+        defineVariable(stmt.name);
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        compile(stmt.condition);
+        int thenJump = emitJump(OpCode.POP_JUMP_IF_FALSE);
+        compile(stmt.thenBranch);
+
+        if (stmt.elseBranch == null) {
+            patchJump(thenJump);
+            return null;
+        }
+
+        int elseJump = emitJump(OpCode.JUMP);
+        patchJump(thenJump);
+        compile(stmt.elseBranch);
+        patchJump(elseJump);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        compile(stmt.expression);
+        emit(OpCode.PRINT);
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        if (stmt.value != null) {
+            compile(stmt.value);
+        } else {
+            emit(OpCode.NIL);
+        }
+        emit(OpCode.RETURN);
+        return null;
+    }
+
+    @Override
+    public Void visitVarStmt(Stmt.Var stmt) {
+        if (stmt.initializer != null) {
+            compile(stmt.initializer);
+        } else {
+            emit(OpCode.NIL);
+        }
+        defineVariable(stmt.name);
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStmt(Stmt.While stmt) {
+        int loopStart = chunk.count;
+        compile(stmt.condition);
+
+        int exitJump = emitJump(OpCode.POP_JUMP_IF_FALSE);
+        compile(stmt.body);
+        emitLoop(loopStart);
+
+        patchJump(exitJump);
+        return null;
+    }
+
+    // -------------------------------------------------------------------------
+    // Expressions
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        compile(expr.value);
+        if (expr.depth >= 0) {
+            emitLocal(OpCode.SET_LOCAL, OpCode.SET_UPVALUE, expr.depth, expr.slot);
+        } else {
+            emit(OpCode.SET_GLOBAL, expr.slot, chunk.addConstant(expr.name));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        compile(expr.left);
+        compile(expr.right);
+
+        switch (expr.operator.type) {
+            case BANG_EQUAL:    emit(OpCode.NOT_EQUAL); break;
+            case EQUAL_EQUAL:   emit(OpCode.EQUAL); break;
+            case GREATER:       emitOperator(OpCode.GREATER, expr.operator); break;
+            case GREATER_EQUAL: emitOperator(OpCode.GREATER_EQUAL, expr.operator); break;
+            case LESS:          emitOperator(OpCode.LESS, expr.operator); break;
+            case LESS_EQUAL:    emitOperator(OpCode.LESS_EQUAL, expr.operator); break;
+            case PLUS:          emitOperator(OpCode.ADD, expr.operator); break;
+            case MINUS:         emitOperator(OpCode.SUBTRACT, expr.operator); break;
+            case STAR:          emitOperator(OpCode.MULTIPLY, expr.operator); break;
+            case SLASH:         emitOperator(OpCode.DIVIDE, expr.operator); break;
+            default:
+                // Unreachable: o Parser só produz os operadores acima.
+                throw new IllegalStateException("Unexpected binary operator " + expr.operator.type);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        // obj.nome(args): busca o método antes dos argumentos (mesma ordem do
+        // Interpreter), mas chama sem criar o método vinculado.
+        if (expr.callee instanceof Expr.Get get) {
+            compile(get.object);
+            emit(OpCode.GET_METHOD, chunk.addConstant(new PropertyCache(get.name, false)));
+            for (Expr argument : expr.arguments) {
+                compile(argument);
+            }
+            emit(OpCode.INVOKE, expr.arguments.size(), chunk.addConstant(expr.paren));
+            stackDepth -= expr.arguments.size();
+            return null;
+        }
+
+        compile(expr.callee);
+        for (Expr argument : expr.arguments) {
+            compile(argument);
+        }
+        emit(OpCode.CALL, expr.arguments.size(), chunk.addConstant(expr.paren));
+        stackDepth -= expr.arguments.size();
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        compile(expr.object);
+        emit(OpCode.GET_PROPERTY, chunk.addConstant(new PropertyCache(expr.name, false)));
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        compile(expr.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        if (expr.value == null) {
+            emit(OpCode.NIL);
+        } else if (expr.value instanceof Boolean) {
+            emit((Boolean) expr.value ? OpCode.TRUE : OpCode.FALSE);
+        } else {
+            emit(OpCode.CONSTANT, chunk.addConstant(expr.value));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        compile(expr.left);
+
+        // or: se o lado esquerdo for verdadeiro, ele é o resultado.
+        // and: se o lado esquerdo for falso, ele é o resultado.
+        int endJump = emitJump(expr.operator.type == TokenType.OR
+                ? OpCode.JUMP_IF_TRUE
+                : OpCode.JUMP_IF_FALSE);
+        emit(OpCode.POP);
+        compile(expr.right);
+        patchJump(endJump);
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        compile(expr.object);
+
+        // O Interpreter verifica o objeto antes de avaliar o valor. Se o valor
+        // puder ter efeitos ou falhar, a verificação precisa vir antes dele.
+        int cache = chunk.addConstant(new PropertyCache(expr.name, true));
+        if (!isSimple(expr.value)) emit(OpCode.CHECK_FIELDS, cache);
+
+        compile(expr.value);
+        emit(OpCode.SET_PROPERTY, cache);
+        return null;
+    }
+
+    @Override
+    public Void visitThisExpr(Expr.This expr) {
+        emitLocal(OpCode.GET_LOCAL, OpCode.GET_UPVALUE, expr.depth, expr.slot);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        compile(expr.right);
+
+        switch (expr.operator.type) {
+            case BANG:  emit(OpCode.NOT); break;
+            case MINUS: emitOperator(OpCode.NEGATE, expr.operator); break;
+            default:
+                // Unreachable: o Parser só produz '!' e '-'.
+                throw new IllegalStateException("Unexpected unary operator " + expr.operator.type);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        if (expr.depth >= 0) {
+            emitLocal(OpCode.GET_LOCAL, OpCode.GET_UPVALUE, expr.depth, expr.slot);
+        } else {
+            emit(OpCode.GET_GLOBAL, expr.slot, chunk.addConstant(expr.name));
+        }
+        return null;
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private void compile(Stmt stmt) {
+        stmt.accept(this);
+    }
+
+    private void compile(Expr expr) {
+        expr.accept(this);
+    }
+
+    /**
+     * Compila o corpo de uma função em um Chunk próprio.
+     * O retorno implícito (nil, ou 'this' em inicializadores) é tratado pela VM.
+     *
+     * O frame começa com a função chamada (ou 'this', em métodos) no slot 0 e
+     * os argumentos em seguida; no Resolver, 'this' é o slot 0 do escopo de
+     * um método e o primeiro parâmetro de uma função é o slot 0.
+     */
+    private Chunk function(Stmt.Function declaration, boolean method) {
+        Chunk enclosingChunk = chunk;
+        FunctionState enclosingFunction = function;
+        int enclosingDepth = stackDepth;
+        chunk = new Chunk(declaration, method);
+        function = new FunctionState(enclosingFunction);
+        scope = new Scope(scope, function, method ? 0 : 1, declaration.localCount);
+        stackDepth = 1 + declaration.params.size();
+        chunk.maxStack = stackDepth;
+
+        for (Stmt statement : declaration.body) {
+            compile(statement);
+        }
+        emit(OpCode.NIL);
+        emit(OpCode.RETURN);
+
+        Chunk compiled = chunk.finish();
+        compiled.captures = function.captures.stream().mapToInt(Integer::intValue).toArray();
+        scope = scope.enclosing;
+        function = enclosingFunction;
+        chunk = enclosingChunk;
+        stackDepth = enclosingDepth;
+        return compiled;
+    }
+
+    /**
+     * Define a variável cujo valor está no topo da pilha: global (pelo índice
+     * na tabela de símbolos) ou local, que já está no seu slot.
+     */
+    private void defineVariable(Token name) {
+        if (scope == null) {
+            emit(OpCode.DEFINE_GLOBAL, globals.globalSlot(name.lexeme()));
+        }
+    }
+
+    /**
+     * Emite o acesso à variável local resolvida em (depth, slot): pelo slot
+     * do frame, se ela é desta função, ou pela upvalue que a captura.
+     */
+    private void emitLocal(int localOp, int upvalueOp, int depth, int slot) {
+        Scope target = scope;
+        for (int i = 0; i < depth; i++) target = target.enclosing;
+
+        if (target.function == function) {
+            emit(localOp, target.first + slot);
+        } else {
+            emit(upvalueOp, upvalue(function, target, slot));
+        }
+    }
+
+    /**
+     * [Cap. 25] Índice da upvalue de 'state' para o slot 'slot' de 'target',
+     * criando-a (e as das funções intermediárias) na primeira referência.
+     */
+    private int upvalue(FunctionState state, Scope target, int slot) {
+        int capture;
+        if (state.enclosing == target.function) {
+            target.captured[slot] = true;
+            capture = target.first + slot;
+        } else {
+            capture = ~upvalue(state.enclosing, target, slot);
+        }
+
+        int index = state.captures.indexOf(capture);
+        if (index >= 0) return index;
+        state.captures.add(capture);
+        return state.captures.size() - 1;
+    }
+
+    /**
+     * Expressões sem efeitos colaterais e que nunca geram erro em tempo de execução.
+     */
+    private boolean isSimple(Expr expr) {
+        if (expr instanceof Expr.Literal || expr instanceof Expr.This) return true;
+        return expr instanceof Expr.Variable variable && variable.depth >= 0;
+    }
+
+    private void emitOperator(int opCode, Token operator) {
+        emit(opCode, chunk.addConstant(operator));
+    }
+
+    private int emitJump(int opCode) {
+        emit(opCode, 0);
+        return chunk.count - 1;
+    }
+
+    /**
+     * Ajusta o deslocamento de um salto para apontar para a posição atual.
+     */
+    private void patchJump(int operand) {
+        chunk.code[operand] = chunk.count - (operand + 1);
+    }
+
+    private void emitLoop(int loopStart) {
+        emit(OpCode.LOOP, chunk.count + 2 - loopStart);
+    }
+
+    private void emit(int opCode) {
+        chunk.write(opCode);
+        trackStack(opCode);
+    }
+
+    private void emit(int opCode, int operand) {
+        chunk.write(opCode);
+        chunk.write(operand);
+        trackStack(opCode);
+    }
+
+    private void emit(int opCode, int first, int second) {
+        chunk.write(opCode);
+        chunk.write(first);
+        chunk.write(second);
+        trackStack(opCode);
+    }
+
+    /**
+     * Atualiza a altura da pilha e o máximo do chunk; a VM reserva esse
+     * espaço ao entrar no frame e dispensa verificações a cada push.
+     */
+    private void trackStack(int opCode) {
+        stackDepth += OpCode.STACK_EFFECT[opCode];
+        if (stackDepth > chunk.maxStack) chunk.maxStack = stackDepth;
+    }
+}
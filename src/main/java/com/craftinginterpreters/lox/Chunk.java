@@ -0,0 +1,85 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chunk — Bloco de bytecode.
+ *
+ * Guarda o código compilado de uma função (ou do script de topo) como um array
+ * de inteiros (instruções de OpCode e seus operandos) e a tabela de constantes
+ * (números, strings, tokens usados em erros e chunks de funções aninhadas).
+ *
+ * Referência: Crafting Interpreters — Cap. 14 (Chunks of Bytecode).
+ */
+final class Chunk {
+
+    /** Declaração de origem; nula para o script de topo. */
+    final Stmt.Function function;
+
+    /** Método: o slot 0 do frame é 'this' (em funções, é a própria função). */
+    final boolean method;
+
+    int[] code = new int[64];
+    int count = 0;
+
+    /** Altura máxima da pilha de operandos, calculada pelo compilador. */
+    int maxStack = 0;
+
+    private final List<Object> constantList = new ArrayList<>();
+
+    // Deduplica números e strings literais repetidos no mesmo chunk.
+    private final Map<Object, Integer> literalIndexes = new HashMap<>();
+
+    /** Tabela de constantes congelada por finish(), usada pela VM. */
+    Object[] constants;
+
+    /**
+     * Variáveis capturadas pela closure, na ordem das suas upvalues: um slot
+     * do frame da função que a cria (>= 0) ou ~i para a upvalue i dela.
+     */
+    int[] captures = new int[0];
+
+    Chunk(Stmt.Function function, boolean method) {
+        this.function = function;
+        this.method = method;
+    }
+
+    /**
+     * Acrescenta uma instrução ou operando ao final do código.
+     */
+    void write(int value) {
+        if (count == code.length) {
+            code = Arrays.copyOf(code, count * 2);
+        }
+        code[count++] = value;
+    }
+
+    /**
+     * Adiciona um valor à tabela de constantes e retorna seu índice.
+     */
+    int addConstant(Object value) {
+        boolean literal = value instanceof Double || value instanceof String;
+        if (literal) {
+            Integer index = literalIndexes.get(value);
+            if (index != null) return index;
+        }
+
+        constantList.add(value);
+        int index = constantList.size() - 1;
+        if (literal) literalIndexes.put(value, index);
+        return index;
+    }
+
+    /**
+     * Encerra a compilação: recorta o código e congela as constantes.
+     */
+    Chunk finish() {
+        code = Arrays.copyOf(code, count);
+        constants = constantList.toArray();
+        return this;
+    }
+}
@@ -0,0 +1,457 @@
+package com.craftinginterpreters.lox;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Document — Front-end incremental para um código que é editado aos poucos
+ * (editor, pré-visualização).
+ *
+ * Guarda o texto, os tokens e as declarações de nível superior com a faixa de
+ * tokens de cada uma. Uma edição (posição, bytes removidos, texto inserido):
+ *
+ *  1. Varre de novo só a região afetada: do início da linha da edição (ou da
+ *     string de várias linhas que a atravessa) até a primeira quebra de linha
+ *     depois dela em que o estado do Scanner volta a coincidir com o da
+ *     varredura anterior, isto é, fora de uma string nos dois textos. Daí em
+ *     diante os tokens antigos valem, deslocados. Se a região passa de uma
+ *     fração do texto (uma aspa nova inverte todas as strings seguintes), o
+ *     resto é varrido de uma vez, como numa abertura.
+ *  2. Analisa de novo a partir da declaração que contém o primeiro token
+ *     trocado, até o Parser parar no início de uma declaração antiga depois da
+ *     região trocada: como o Parser não guarda estado entre declarações, as
+ *     seguintes seriam idênticas e são reaproveitadas (se a edição mudou o
+ *     número de linhas, as linhas dos seus tokens são deslocadas).
+ *
+ * As posições são em bytes do texto UTF-8 (iguais às de caractere num texto
+ * ASCII). Os erros léxicos e de sintaxe são reportados por Lox.error, como no
+ * resto do front-end, mas só os da região varrida ou analisada de novo.
+ */
+final class Document {
+
+    // Região varrida de novo (em bytes) a partir da qual o resto do texto é
+    // varrido de uma vez: 1/16 do texto, e pelo menos MIN_RESCAN.
+    private static final int MIN_RESCAN = 4096;
+    private static final int RESCAN_FRACTION = 16;
+
+    /**
+     * Uma declaração de nível superior e os tokens [start, end) que ela ocupa,
+     * incluindo os das declarações com erro logo antes dela: as faixas são
+     * contíguas, como as chamadas de Parser.next().
+     */
+    private static final class Declaration {
+        int start;
+        int end;
+        final Stmt statement;
+
+        Declaration(int start, int end, Stmt statement) {
+            this.start = start;
+            this.end = end;
+            this.statement = statement;
+        }
+    }
+
+    // Texto atual, com espaço para o sentinela (ver Source.wrap).
+    private byte[] text;
+    private int length;
+    private TokenBuffer tokens;
+    // Compartilhada por todas as varreduras, para os índices de símbolo valerem
+    // entre os tokens antigos e os novos.
+    private final SymbolTable symbols;
+    private final List<Declaration> declarations = new ArrayList<>();
+    // Bytes varridos de novo pela última edição.
+    private int rescanned = 0;
+
+    Document(String source) {
+        byte[] content = source.getBytes(StandardCharsets.UTF_8);
+        this.length = content.length;
+        this.text = new byte[length + 1];
+        System.arraycopy(content, 0, text, 0, length);
+
+        this.tokens = new Scanner(Source.wrap(text, length)).scan().eager();
+        this.symbols = tokens.symbols;
+        parseFrom(0, 0, 0, 0);
+    }
+
+    /** As declarações de nível superior atuais (sem as que têm erro de sintaxe). */
+    List<Stmt> statements() {
+        List<Stmt> statements = new ArrayList<>(declarations.size());
+        for (Declaration declaration : declarations) statements.add(declaration.statement);
+        return statements;
+    }
+
+    TokenBuffer tokens() {
+        return tokens;
+    }
+
+    String text() {
+        return new String(text, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /** Quantos bytes a última edição varreu de novo (custo da re-varredura). */
+    int rescanned() {
+        return rescanned;
+    }
+
+    /**
+     * Substitui os 'removed' bytes a partir de 'offset' por 'inserted'.
+     */
+    void edit(int offset, int removed, String inserted) {
+        Objects.checkFromIndexSize(offset, removed, length);
+        byte[] insertedBytes = inserted.getBytes(StandardCharsets.UTF_8);
+        int shift = insertedBytes.length - removed;
+        int lineShift = newlines(insertedBytes, 0, insertedBytes.length) - newlines(text, offset, offset + removed);
+
+        byte[] oldText = text;
+        int oldLength = length;
+        length = oldLength + shift;
+        text = new byte[length + 1];
+        System.arraycopy(oldText, 0, text, 0, offset);
+        System.arraycopy(insertedBytes, 0, text, offset, insertedBytes.length);
+        System.arraycopy(oldText, offset + removed, text, offset + insertedBytes.length,
+                oldLength - offset - removed);
+        Source source = Source.wrap(text, length);
+
+        // 1. Onde a varredura recomeça: o início da linha da edição, num estado
+        //    neutro (fora de string; comentários acabam no '\n'), ou o início da
+        //    string que atravessa esse ponto. Antes dele o texto não mudou.
+        int restart = offset;
+        while (restart > 0 && oldText[restart - 1] != '\n') restart--;
+        int first = tokens.firstAtOrAfter(restart);
+        if (first > 0 && tokens.end(first - 1) > restart) {
+            first--;
+            restart = tokens.start(first);
+        } else if (first == tokens.size() - 1) {
+            int open = openString(oldText, first > 0 ? tokens.end(first - 1) : 0, restart);
+            if (open >= 0) restart = open;
+        }
+        int line = first > 0
+                ? tokens.line(first - 1) + newlines(oldText, tokens.end(first - 1), restart)
+                : 1 + newlines(oldText, 0, restart);
+
+        // 2. Varre linha a linha até o estado voltar a coincidir com o antigo.
+        TokenBuffer middle = new TokenBuffer(source, symbols, insertedBytes.length + 64);
+        int editEnd = offset + insertedBytes.length;
+        int limit = restart + Math.max(MIN_RESCAN, length / RESCAN_FRACTION);
+        int from = restart;
+        int searchFrom = editEnd;
+        // Aspas da string sem fechamento no fim do texto antigo (-1: nenhuma),
+        // calculada só se preciso.
+        int oldOpen = -2;
+        rescanned = 0;
+        int resume;
+        while (true) {
+            int to = lineAfter(Math.max(from, searchFrom));
+            if (to > limit) to = length;
+            Scanner scanner = new Scanner(source, from, to, line, middle);
+            scanner.scanRange();
+            rescanned += to - from;
+
+            if (to == length) {
+                if (scanner.openString >= 0) Lox.error(scanner.line(), "Unterminated string.");
+                resume = tokens.size() - 1; // só o EOF
+                break;
+            }
+            searchFrom = to;
+            if (scanner.openString >= 0) {
+                // A string continua depois de 'to': varre de novo a partir dela,
+                // uma única vez, até a linha em que ela fecha (sem escapes em
+                // Lox, nas próximas aspas) ou até o fim.
+                from = scanner.openString;
+                line = scanner.openStringLine;
+                searchFrom = closingQuote(to);
+                continue;
+            }
+            from = to;
+            line = scanner.line();
+
+            // O '\n' antes de 'to' é texto antigo: 'to' corresponde a oldTo no
+            // texto anterior. Se lá também não havia string aberta, acabou.
+            int oldTo = to - shift;
+            int next = tokens.firstAtOrAfter(oldTo);
+            int previousEnd = next > 0 ? tokens.end(next - 1) : 0;
+            if (previousEnd > oldTo) continue;
+            if (next == tokens.size() - 1) {
+                if (oldOpen == -2) oldOpen = openString(oldText, previousEnd, oldLength);
+                if (oldOpen >= 0 && oldOpen < oldTo) continue;
+            }
+            resume = next;
+            break;
+        }
+
+        // A declaração que termina logo antes do primeiro token trocado também é
+        // analisada de novo: um if sem else olha o token seguinte.
+        int firstDeclaration = declarationEndingAtOrAfter(first);
+        tokens = tokens.splice(source, first, middle, resume, shift, lineShift);
+
+        // 3. Analisa de novo a partir da declaração afetada.
+        int tokenShift = middle.size() - (resume - first);
+        parseFrom(firstDeclaration, first + middle.size(), tokenShift, lineShift);
+    }
+
+    /**
+     * Substitui as declarações a partir da de índice 'index' pelas obtidas
+     * analisando os tokens atuais, até o Parser chegar, depois do token
+     * 'changedEnd', ao início de uma declaração antiga (deslocada de
+     * 'tokenShift' tokens); dela em diante as antigas são mantidas.
+     */
+    private void parseFrom(int index, int changedEnd, int tokenShift, int lineShift) {
+        int start = index < declarations.size() ? declarations.get(index).start
+                : index > 0 ? declarations.get(index - 1).end : 0;
+        Parser parser = new Parser(tokens, start);
+
+        List<Declaration> parsed = new ArrayList<>();
+        int reuse = index;
+        int old = declarations.size();
+        while (true) {
+            int position = parser.position();
+            if (position >= changedEnd) {
+                while (reuse < old && declarations.get(reuse).start < position - tokenShift) reuse++;
+                if (reuse < old && declarations.get(reuse).start == position - tokenShift) break;
+            }
+
+            Stmt statement = parser.next();
+            if (statement == null) {
+                reuse = old;
+                break;
+            }
+            parsed.add(new Declaration(position, parser.position(), statement));
+        }
+
+        List<Declaration> kept = declarations.subList(reuse, old);
+        for (Declaration declaration : kept) {
+            declaration.start += tokenShift;
+            declaration.end += tokenShift;
+            if (lineShift != 0) LineShift.apply(declaration.statement, lineShift);
+        }
+        declarations.subList(index, reuse).clear();
+        declarations.addAll(index, parsed);
+    }
+
+    private int declarationEndingAtOrAfter(int token) {
+        int low = 0;
+        int high = declarations.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (declarations.get(middle).end < token) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /** Posição logo depois das primeiras aspas a partir de 'from', ou o fim do texto. */
+    private int closingQuote(int from) {
+        for (int i = from; i < length; i++) {
+            if (text[i] == '"') return i + 1;
+        }
+        return length;
+    }
+
+    /** Posição logo depois do primeiro '\n' a partir de 'from', ou o fim do texto. */
+    private int lineAfter(int from) {
+        for (int i = from; i < length; i++) {
+            if (text[i] == '\n') return i + 1;
+        }
+        return length;
+    }
+
+    /**
+     * Posição das aspas que abrem uma string no trecho [from, to), sem tokens,
+     * ou -1. Só acontece com a string sem fechamento no fim do código, que não
+     * vira token.
+     */
+    private static int openString(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '"') return i;
+            if (bytes[i] == '/') {
+                // Fora de um token, só pode ser um comentário: pula a linha.
+                while (i < to && bytes[i] != '\n') i++;
+            }
+        }
+        return -1;
+    }
+
+    private static int newlines(byte[] bytes, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == '\n') count++;
+        }
+        return count;
+    }
+
+    // -------------------------------------------------------------------------
+    // Deslocamento de linhas de uma declaração reaproveitada
+    // -------------------------------------------------------------------------
+
+    /** Soma um deslocamento à linha de todos os tokens de uma AST. */
+    private static final class LineShift implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+        private final int shift;
+
+        private LineShift(int shift) {
+            this.shift = shift;
+        }
+
+        static void apply(Stmt statement, int shift) {
+            new LineShift(shift).statement(statement);
+        }
+
+        private void token(Token token) {
+            token.line += shift;
+        }
+
+        private void statements(List<Stmt> statements) {
+            for (Stmt statement : statements) statement(statement);
+        }
+
+        private void statement(Stmt stmt) {
+            if (stmt != null) stmt.accept(this);
+        }
+
+        private void expression(Expr expr) {
+            if (expr != null) expr.accept(this);
+        }
+
+        @Override
+        public Void visitBlockStmt(Stmt.Block stmt) {
+            statements(stmt.statements);
+            return null;
+        }
+
+        @Override
+        public Void visitClassStmt(Stmt.Class stmt) {
+            token(stmt.name);
+            for (Stmt.Function method : stmt.methods) statement(method);
+            return null;
+        }
+
+        @Override
+        public Void visitExpressionStmt(Stmt.Expression stmt) {
+            expression(stmt.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitFunctionStmt(Stmt.Function stmt) {
+            token(stmt.name);
+            for (Token param : stmt.params) token(param);
+            statements(stmt.body);
+            return null;
+        }
+
+        @Override
+        public Void visitIfStmt(Stmt.If stmt) {
+            expression(stmt.condition);
+            statement(stmt.thenBranch);
+            statement(stmt.elseBranch);
+            return null;
+        }
+
+        @Override
+        public Void visitPrintStmt(Stmt.Print stmt) {
+            expression(stmt.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitReturnStmt(Stmt.Return stmt) {
+            token(stmt.keyword);
+            expression(stmt.value);
+            return null;
+        }
+
+        @Override
+        public Void visitVarStmt(Stmt.Var stmt) {
+            token(stmt.name);
+            expression(stmt.initializer);
+            return null;
+        }
+
+        @Override
+        public Void visitWhileStmt(Stmt.While stmt) {
+            expression(stmt.condition);
+            statement(stmt.body);
+            return null;
+        }
+
+        @Override
+        public Void visitAssignExpr(Expr.Assign expr) {
+            token(expr.name);
+            expression(expr.value);
+            return null;
+        }
+
+        @Override
+        public Void visitBinaryExpr(Expr.Binary expr) {
+            expression(expr.left);
+            token(expr.operator);
+            expression(expr.right);
+            return null;
+        }
+
+        @Override
+        public Void visitCallExpr(Expr.Call expr) {
+            expression(expr.callee);
+            token(expr.paren);
+            for (Expr argument : expr.arguments) expression(argument);
+            return null;
+        }
+
+        @Override
+        public Void visitGetExpr(Expr.Get expr) {
+            expression(expr.object);
+            token(expr.name);
+            return null;
+        }
+
+        @Override
+        public Void visitGroupingExpr(Expr.Grouping expr) {
+            expression(expr.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitLiteralExpr(Expr.Literal expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitLogicalExpr(Expr.Logical expr) {
+            expression(expr.left);
+            token(expr.operator);
+            expression(expr.right);
+            return null;
+        }
+
+        @Override
+        public Void visitSetExpr(Expr.Set expr) {
+            expression(expr.object);
+            token(expr.name);
+            expression(expr.value);
+            return null;
+        }
+
+        @Override
+        public Void visitThisExpr(Expr.This expr) {
+            token(expr.keyword);
+            return null;
+        }
+
+        @Override
+        public Void visitUnaryExpr(Expr.Unary expr) {
+            token(expr.operator);
+            expression(expr.right);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableExpr(Expr.Variable expr) {
+            token(expr.name);
+            return null;
+        }
+    }
+}
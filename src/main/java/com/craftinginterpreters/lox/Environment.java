@@ -1,6 +1,7 @@
 package com.craftinginterpreters.lox;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
@@ -8,7 +9,14 @@ import java.util.Map;
  * Armazena as variáveis e seus valores durante a execução do programa.
  * Implementa o conceito de escopo léxico através de encadeamento de ambientes.
  *
- * Referência: Crafting Interpreters - Capítulo 8 (Statements and State).
+ * Há dois tipos de ambiente:
+ *  - Global: tabela de símbolos { nome → índice } mais um array crescente de valores.
+ *    Cada Expr.Variable/Expr.Assign global guarda seu índice, resolvido uma única vez.
+ *  - Local: frame indexado (Object[]). O Resolver atribui a cada variável local
+ *    um par (profundidade, slot), e o acesso vira indexação direta de array.
+ *
+ * Referência: Crafting Interpreters - Capítulo 8 (Statements and State)
+ * e Capítulo 11 (Resolving and Binding).
  */
 class Environment {
     
@@ -17,31 +25,87 @@ class Environment {
     // Isso permite que um bloco acesse variáveis definidas fora dele (Closure).
     final Environment enclosing;
 
-    // Mapa para armazenar os nomes das variáveis e seus valores neste escopo.
-    private final Map<String, Object> values = new HashMap<>();
+    // Valor de um slot global que já tem índice mas ainda não foi definido.
+    // Permite manter o erro "Undefined variable" sem consultar o mapa de nomes.
+    static final Object UNDEFINED = new Object();
+
+    // Tabela de símbolos global: nome → índice em 'slots'.
+    // Chaveada por identidade: os nomes são canônicos (ver SymbolTable.canonical).
+    // Nula em ambientes locais.
+    private final Map<String, Integer> indexes;
+
+    // [Cap. 11] Slots das variáveis: no ambiente local, na ordem em que o Resolver
+    // as declarou; no global, na ordem em que os nomes foram vistos (cresce sob demanda).
+    private Object[] slots;
+
+    // Próximo slot livre (locais) ou número de globais registradas.
+    private int count = 0;
+
+    // Total de ambientes locais criados (relatado por --stats). Só é contado
+    // depois que um RunStats liga 'counting': sem --stats, chamadas e blocos
+    // não pagam pelo contador.
+    static boolean counting = false;
+    static long created = 0;
 
     /**
      * Construtor para o escopo global (sem pai).
      */
     Environment() {
-        enclosing = null;
+        this.enclosing = null;
+        this.indexes = new IdentityHashMap<>();
+        this.slots = new Object[16];
     }
 
     /**
-     * Construtor para escopos locais (blocos).
+     * Construtor para escopos locais (blocos e chamadas).
      * @param enclosing O ambiente externo onde este novo ambiente está aninhado.
+     * @param size      Número de variáveis locais do escopo, calculado pelo Resolver.
      */
-    Environment(Environment enclosing) {
+    Environment(Environment enclosing, int size) {
         this.enclosing = enclosing;
+        this.indexes = null;
+        this.slots = new Object[size];
+        if (counting) created++;
+    }
+
+    /**
+     * Aumenta o frame para 'size' slots: o corpo de uma função adiada só é
+     * resolvido depois que o frame da primeira chamada já existe (ver StmtNode.Lazy).
+     */
+    void reserve(int size) {
+        if (slots.length < size) slots = Arrays.copyOf(slots, size);
     }
 
     /**
      * [Cap. 8] Define uma nova variável.
      * Ao contrário da atribuição, 'define' sempre cria uma nova entrada no escopo atual,
      * mesmo que a variável já exista (permitindo sombreamento/shadowing).
+     *
+     * Em ambientes locais o nome é ignorado: as declarações executam na mesma ordem
+     * em que o Resolver as numerou, então o próximo slot livre é o slot da variável.
      */
     void define(String name, Object value) {
-        values.put(name, value);
+        if (indexes == null) {
+            slots[count++] = value;
+        } else {
+            slots[globalSlot(name)] = value;
+        }
+    }
+
+    /**
+     * Retorna o índice global do nome, registrando-o (como indefinido) se for novo.
+     * Chamado pelo Resolver para cada referência global e por 'define' no topo.
+     */
+    int globalSlot(String name) {
+        Integer index = indexes.get(name);
+        if (index != null) return index;
+
+        if (count == slots.length) {
+            slots = Arrays.copyOf(slots, count * 2);
+        }
+        slots[count] = UNDEFINED;
+        indexes.put(name, count);
+        return count++;
     }
 
     /**
@@ -58,55 +122,74 @@ class Environment {
     }
 
     /**
-     * [Cap. 11] Busca o valor de uma variável em uma distância específica.
+     * [Cap. 11] Busca o valor de uma variável local em (distância, slot).
      * O Resolver garante que a variável existe nesse local.
      */
-    Object getAt(int distance, String name) {
-        return ancestor(distance).values.get(name);
+    Object getAt(int distance, int slot) {
+        return ancestor(distance).slots[slot];
     }
 
     /**
-     * [Cap. 11] Atribui valor a uma variável em uma distância específica.
+     * [Cap. 11] Atribui valor a uma variável local em (distância, slot).
      */
-    void assignAt(int distance, Token name, Object value) {
-        ancestor(distance).values.put(name.lexeme, value);
+    void assignAt(int distance, int slot, Object value) {
+        ancestor(distance).slots[slot] = value;
     }
 
     /**
-     * [Cap. 8] Busca o valor de uma variável (Lookup Dinâmico).
-     * Se a variável não for encontrada neste escopo, tenta buscar no escopo pai (recursão).
+     * Acesso direto a um slot deste frame (distância 0), sem percorrer a cadeia.
      */
-    Object get(Token name) {
-        // 1. Tenta encontrar no escopo atual
-        if (values.containsKey(name.lexeme)) {
-            return values.get(name.lexeme);
-        }
+    Object get(int slot) {
+        return slots[slot];
+    }
 
-        // 2. Se não achou e existe um pai, delega a busca para o pai
-        if (enclosing != null) return enclosing.get(name);
+    void set(int slot, Object value) {
+        slots[slot] = value;
+    }
 
-        // 3. Se chegou ao topo (global) e não achou, é um erro de tempo de execução.
-        throw new RuntimeError(name, "Undefined variable '" + name.lexeme + "'.");
+    /**
+     * Define uma global pelo índice já obtido com globalSlot (usado pela VM).
+     */
+    void defineGlobal(int slot, Object value) {
+        slots[slot] = value;
     }
 
     /**
-     * [Cap. 8] Atribui um novo valor a uma variável existente (Atribuição Dinâmica).
-     * Não é permitido criar variáveis novas via atribuição (deve-se usar 'var' para isso).
+     * [Cap. 8] Busca o valor de uma variável global pelo índice resolvido.
+     * Variáveis locais nunca chegam aqui: o Resolver já as converteu em slots.
      */
-    void assign(Token name, Object value) {
-        // 1. Se a variável existe neste escopo, atualiza o valor
-        if (values.containsKey(name.lexeme)) {
-            values.put(name.lexeme, value);
-            return;
-        }
+    Object getGlobal(int slot, Token name) {
+        Object value = slots[slot];
+        if (value != UNDEFINED) return value;
+
+        // Nome conhecido, mas nunca definido: erro de tempo de execução.
+        throw new RuntimeError(name, "Undefined variable '" + name.lexeme() + "'.");
+    }
 
-        // 2. Se não existe aqui, tenta atribuir no escopo pai
-        if (enclosing != null) {
-            enclosing.assign(name, value);
+    /**
+     * Variantes sem Token para a VM, que só busca o token do nome no caminho de erro.
+     */
+    Object getGlobalOrUndefined(int slot) {
+        return slots[slot];
+    }
+
+    boolean assignGlobalIfDefined(int slot, Object value) {
+        if (slots[slot] == UNDEFINED) return false;
+        slots[slot] = value;
+        return true;
+    }
+
+    /**
+     * [Cap. 8] Atribui um novo valor a uma variável global existente.
+     * Não é permitido criar variáveis novas via atribuição (deve-se usar 'var' para isso).
+     */
+    void assignGlobal(int slot, Token name, Object value) {
+        if (slots[slot] != UNDEFINED) {
+            slots[slot] = value;
             return;
         }
 
-        // 3. Se ninguém tem essa variável, erro.
-        throw new RuntimeError(name, "Undefined variable '" + name.lexeme + "'.");
+        // Se ninguém definiu essa variável, erro.
+        throw new RuntimeError(name, "Undefined variable '" + name.lexeme() + "'.");
     }
 }
\ No newline at end of file
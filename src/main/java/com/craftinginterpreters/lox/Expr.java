@@ -29,6 +29,8 @@ abstract class Expr {
 
     final Token name;
     final Expr value;
+    int depth = -1;
+    int slot = -1;
   }
   static class Binary extends Expr {
     Binary(Expr left, Token operator, Expr right) {
@@ -143,6 +145,8 @@ abstract class Expr {
     }
 
     final Token keyword;
+    int depth = -1;
+    int slot = -1;
   }
   static class Unary extends Expr {
     Unary(Token operator, Expr right) {
@@ -169,6 +173,8 @@ abstract class Expr {
     }
 
     final Token name;
+    int depth = -1;
+    int slot = -1;
   }
 
   abstract <R> R accept(Visitor<R> visitor);
@@ -0,0 +1,630 @@
+package com.craftinginterpreters.lox;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * ExprNode — Nós executáveis de expressão.
+ *
+ * Produzidos pelo NodeCompiler a partir da AST resolvida (Expr). Cada nó já
+ * conhece seus filhos e a resolução de variáveis (profundidade/slot), e avalia
+ * a si mesmo com evaluate(frame) — sem o despacho duplo accept/visit.
+ *
+ * Cada operador tem sua própria classe final, de modo que o JIT vê chamadas
+ * monomórficas dentro de cada nó e consegue inlinear os caminhos quentes.
+ *
+ * A semântica (ordem de avaliação, verificações e mensagens de erro) é a mesma
+ * do interpretador de árvore descrito no livro.
+ *
+ * Referências:
+ *  - Crafting Interpreters — Cap. 7 (Evaluating Expressions)
+ *  - Crafting Interpreters — Cap. 10 (Functions)
+ *  - Crafting Interpreters — Cap. 12 (Classes)
+ */
+abstract class ExprNode {
+
+    /**
+     * Avalia a expressão no frame (Environment) atual.
+     */
+    abstract Object evaluate(Environment frame);
+
+    // -------------------------------------------------------------------------
+    // Literais e variáveis
+    // -------------------------------------------------------------------------
+
+    static final class Constant extends ExprNode {
+        private final Object value;
+
+        Constant(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            return value;
+        }
+    }
+
+    /** Variável local declarada no próprio frame (distância 0). */
+    static final class GetSlot extends ExprNode {
+        private final int slot;
+
+        GetSlot(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            return frame.get(slot);
+        }
+    }
+
+    /** Variável local de um escopo envolvente (distância > 0). */
+    static final class GetLocal extends ExprNode {
+        private final int depth;
+        private final int slot;
+
+        GetLocal(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            return frame.getAt(depth, slot);
+        }
+    }
+
+    static final class GetGlobal extends ExprNode {
+        private final Environment globals;
+        private final int slot;
+        private final Token name;
+
+        GetGlobal(Environment globals, int slot, Token name) {
+            this.globals = globals;
+            this.slot = slot;
+            this.name = name;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            return globals.getGlobal(slot, name);
+        }
+    }
+
+    static final class SetSlot extends ExprNode {
+        private final int slot;
+        private final ExprNode value;
+
+        SetSlot(int slot, ExprNode value) {
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object result = value.evaluate(frame);
+            frame.set(slot, result);
+            return result;
+        }
+    }
+
+    static final class SetLocal extends ExprNode {
+        private final int depth;
+        private final int slot;
+        private final ExprNode value;
+
+        SetLocal(int depth, int slot, ExprNode value) {
+            this.depth = depth;
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object result = value.evaluate(frame);
+            frame.assignAt(depth, slot, result);
+            return result;
+        }
+    }
+
+    static final class SetGlobal extends ExprNode {
+        private final Environment globals;
+        private final int slot;
+        private final Token name;
+        private final ExprNode value;
+
+        SetGlobal(Environment globals, int slot, Token name, ExprNode value) {
+            this.globals = globals;
+            this.slot = slot;
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object result = value.evaluate(frame);
+            globals.assignGlobal(slot, name, result);
+            return result;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Operadores
+    // -------------------------------------------------------------------------
+
+    /** Base dos operadores binários: filhos e token (para mensagens de erro). */
+    abstract static class Binary extends ExprNode {
+        final ExprNode left;
+        final ExprNode right;
+        final Token operator;
+
+        Binary(ExprNode left, Token operator, ExprNode right) {
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+    }
+
+    static final class Add extends Binary {
+        Add(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            Object r = right.evaluate(frame);
+            if (l instanceof Double && r instanceof Double) {
+                return (double) l + (double) r;
+            }
+            if (l instanceof String && r instanceof String) {
+                return (String) l + (String) r;
+            }
+            throw new RuntimeError(operator,
+                    "Operands must be two numbers or two strings.");
+        }
+    }
+
+    static final class Subtract extends Binary {
+        Subtract(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            Object r = right.evaluate(frame);
+            checkNumberOperands(operator, l, r);
+            return (double) l - (double) r;
+        }
+    }
+
+    static final class Multiply extends Binary {
+        Multiply(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            Object r = right.evaluate(frame);
+            checkNumberOperands(operator, l, r);
+            return (double) l * (double) r;
+        }
+    }
+
+    static final class Divide extends Binary {
+        Divide(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            Object r = right.evaluate(frame);
+            checkNumberOperands(operator, l, r);
+            return (double) l / (double) r;
+        }
+    }
+
+    static final class Greater extends Binary {
+        Greater(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            Object r = right.evaluate(frame);
+            checkNumberOperands(operator, l, r);
+            return (double) l > (double) r;
+        }
+    }
+
+    static final class GreaterEqual extends Binary {
+        GreaterEqual(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            Object r = right.evaluate(frame);
+            checkNumberOperands(operator, l, r);
+            return (double) l >= (double) r;
+        }
+    }
+
+    static final class Less extends Binary {
+        Less(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            Object r = right.evaluate(frame);
+            checkNumberOperands(operator, l, r);
+            return (double) l < (double) r;
+        }
+    }
+
+    static final class LessEqual extends Binary {
+        LessEqual(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            Object r = right.evaluate(frame);
+            checkNumberOperands(operator, l, r);
+            return (double) l <= (double) r;
+        }
+    }
+
+    static final class Equal extends Binary {
+        Equal(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            return Interpreter.isEqual(l, right.evaluate(frame));
+        }
+    }
+
+    static final class NotEqual extends Binary {
+        NotEqual(ExprNode left, Token operator, ExprNode right) {
+            super(left, operator, right);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object l = left.evaluate(frame);
+            return !Interpreter.isEqual(l, right.evaluate(frame));
+        }
+    }
+
+    static final class Negate extends ExprNode {
+        private final Token operator;
+        private final ExprNode right;
+
+        Negate(Token operator, ExprNode right) {
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object value = right.evaluate(frame);
+            if (!(value instanceof Double)) {
+                throw new RuntimeError(operator, "Operand must be a number.");
+            }
+            return -(double) value;
+        }
+    }
+
+    static final class Not extends ExprNode {
+        private final ExprNode right;
+
+        Not(ExprNode right) {
+            this.right = right;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            return !Interpreter.isTruthy(right.evaluate(frame));
+        }
+    }
+
+    /** [Cap. 9] 'and' com curto-circuito. */
+    static final class And extends ExprNode {
+        private final ExprNode left;
+        private final ExprNode right;
+
+        And(ExprNode left, ExprNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object value = left.evaluate(frame);
+            if (!Interpreter.isTruthy(value)) return value;
+            return right.evaluate(frame);
+        }
+    }
+
+    /** [Cap. 9] 'or' com curto-circuito. */
+    static final class Or extends ExprNode {
+        private final ExprNode left;
+        private final ExprNode right;
+
+        Or(ExprNode left, ExprNode right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object value = left.evaluate(frame);
+            if (Interpreter.isTruthy(value)) return value;
+            return right.evaluate(frame);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Chamadas, funções e classes
+    // -------------------------------------------------------------------------
+
+    /** [Cap. 10] Chamada de função, método ou classe. */
+    static final class Call extends ExprNode {
+        private final Interpreter interpreter;
+        private final ExprNode callee;
+        private final ExprNode[] arguments;
+        private final Token paren;
+
+        Call(Interpreter interpreter, ExprNode callee, ExprNode[] arguments, Token paren) {
+            this.interpreter = interpreter;
+            this.callee = callee;
+            this.arguments = arguments;
+            this.paren = paren;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object function = callee.evaluate(frame);
+
+            return call(interpreter, function, arguments, frame, paren);
+        }
+    }
+
+    /**
+     * [Cap. 12] Chamada obj.nome(args): quando a propriedade é um método da
+     * classe, chama-o com 'this' = obj sem criar o método vinculado (bind).
+     * A busca acontece antes dos argumentos, como em Get seguido de Call.
+     */
+    static final class Invoke extends ExprNode {
+        private final Interpreter interpreter;
+        private final ExprNode object;
+        private final PropertyCache cache;
+        private final ExprNode[] arguments;
+        private final Token paren;
+
+        Invoke(Interpreter interpreter, ExprNode object, Token name,
+               ExprNode[] arguments, Token paren) {
+            this.interpreter = interpreter;
+            this.object = object;
+            this.cache = new PropertyCache(name, false);
+            this.arguments = arguments;
+            this.paren = paren;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object target = object.evaluate(frame);
+            if (!(target instanceof LoxInstance)) {
+                throw new RuntimeError(cache.name, "Only instances have properties.");
+            }
+
+            LoxInstance instance = (LoxInstance) target;
+            LoxFunction method = cache.method(instance);
+            if (method == null) {
+                // Campo com um valor chamável: segue o caminho de Call.
+                Object function = instance.get(cache.name);
+                return call(interpreter, function, arguments, frame, paren);
+            }
+
+            return invoke(method, instance, arguments, frame, paren);
+        }
+    }
+
+    /** [Cap. 10] Cria a closure de uma declaração de função no frame atual. */
+    static final class Function extends ExprNode {
+        private final Stmt.Function declaration;
+        private final StmtNode[] body;
+
+        Function(Stmt.Function declaration, StmtNode[] body) {
+            this.declaration = declaration;
+            this.body = body;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            return new LoxFunction(declaration, body, frame, false);
+        }
+    }
+
+    /** [Cap. 12] Cria a classe, com métodos que capturam o frame atual. */
+    static final class Class extends ExprNode {
+        private final String name;
+        private final Stmt.Function[] declarations;
+        private final StmtNode[][] bodies;
+
+        Class(String name, Stmt.Function[] declarations, StmtNode[][] bodies) {
+            this.name = name;
+            this.declarations = declarations;
+            this.bodies = bodies;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Map<String, LoxFunction> methods = new IdentityHashMap<>();
+            for (int i = 0; i < declarations.length; i++) {
+                Stmt.Function method = declarations[i];
+                boolean isInitializer = method.name.lexeme().equals("init");
+                methods.put(method.name.lexeme(),
+                        new LoxFunction(method, bodies[i], frame, isInitializer));
+            }
+            return new LoxClass(name, methods);
+        }
+    }
+
+    /** [Cap. 12] Leitura de propriedade (campo ou método vinculado), via cache inline. */
+    static final class GetProperty extends ExprNode {
+        private final ExprNode object;
+        private final PropertyCache cache;
+
+        GetProperty(ExprNode object, Token name) {
+            this.object = object;
+            this.cache = new PropertyCache(name, false);
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object value = object.evaluate(frame);
+            if (value instanceof LoxInstance) {
+                return cache.get((LoxInstance) value);
+            }
+            throw new RuntimeError(cache.name, "Only instances have properties.");
+        }
+    }
+
+    /** [Cap. 12] Escrita de campo: o objeto é verificado antes de avaliar o valor. */
+    static final class SetProperty extends ExprNode {
+        private final ExprNode object;
+        private final PropertyCache cache;
+        private final ExprNode value;
+
+        SetProperty(ExprNode object, Token name, ExprNode value) {
+            this.object = object;
+            this.cache = new PropertyCache(name, true);
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(Environment frame) {
+            Object target = object.evaluate(frame);
+            if (!(target instanceof LoxInstance)) {
+                throw new RuntimeError(cache.name, "Only instances have fields.");
+            }
+
+            Object result = value.evaluate(frame);
+            cache.set((LoxInstance) target, result);
+            return result;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * [Cap. 10] Avalia os argumentos e chama o valor pela entrada da sua aridade
+     * (call0..call3), sem lista de argumentos; acima de 3, usa um array.
+     */
+    static Object call(Interpreter interpreter, Object callee, ExprNode[] arguments,
+                       Environment frame, Token paren) {
+        switch (arguments.length) {
+            case 0:
+                return callable(callee, 0, paren).call0(interpreter);
+            case 1: {
+                Object a = arguments[0].evaluate(frame);
+                return callable(callee, 1, paren).call1(interpreter, a);
+            }
+            case 2: {
+                Object a = arguments[0].evaluate(frame);
+                Object b = arguments[1].evaluate(frame);
+                return callable(callee, 2, paren).call2(interpreter, a, b);
+            }
+            case 3: {
+                Object a = arguments[0].evaluate(frame);
+                Object b = arguments[1].evaluate(frame);
+                Object c = arguments[2].evaluate(frame);
+                return callable(callee, 3, paren).call3(interpreter, a, b, c);
+            }
+            default: {
+                Object[] values = evaluateAll(arguments, frame);
+                return callable(callee, values.length, paren).call(interpreter, values);
+            }
+        }
+    }
+
+    /**
+     * [Cap. 12] Como call, mas para um método com 'this' = instance.
+     */
+    static Object invoke(LoxFunction method, LoxInstance instance, ExprNode[] arguments,
+                         Environment frame, Token paren) {
+        switch (arguments.length) {
+            case 0:
+                checkArity(method.arity(), 0, paren);
+                return method.invoke0(instance);
+            case 1: {
+                Object a = arguments[0].evaluate(frame);
+                checkArity(method.arity(), 1, paren);
+                return method.invoke1(instance, a);
+            }
+            case 2: {
+                Object a = arguments[0].evaluate(frame);
+                Object b = arguments[1].evaluate(frame);
+                checkArity(method.arity(), 2, paren);
+                return method.invoke2(instance, a, b);
+            }
+            case 3: {
+                Object a = arguments[0].evaluate(frame);
+                Object b = arguments[1].evaluate(frame);
+                Object c = arguments[2].evaluate(frame);
+                checkArity(method.arity(), 3, paren);
+                return method.invoke3(instance, a, b, c);
+            }
+            default: {
+                Object[] values = evaluateAll(arguments, frame);
+                checkArity(method.arity(), values.length, paren);
+                return method.invoke(instance, values);
+            }
+        }
+    }
+
+    static Object[] evaluateAll(ExprNode[] arguments, Environment frame) {
+        Object[] values = new Object[arguments.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = arguments[i].evaluate(frame);
+        }
+        return values;
+    }
+
+    static LoxCallable callable(Object callee, int argCount, Token paren) {
+        if (!(callee instanceof LoxCallable)) {
+            throw new RuntimeError(paren, "Can only call functions and classes.");
+        }
+
+        LoxCallable callable = (LoxCallable) callee;
+        checkArity(callable.arity(), argCount, paren);
+        return callable;
+    }
+
+    static void checkArity(int arity, int argCount, Token paren) {
+        if (argCount != arity) {
+            throw new RuntimeError(paren, "Expected " +
+                    arity + " arguments but got " + argCount + ".");
+        }
+    }
+
+    static void checkNumberOperands(Token operator, Object left, Object right) {
+        if (left instanceof Double && right instanceof Double) return;
+        throw new RuntimeError(operator, "Operands must be numbers.");
+    }
+}
@@ -1,18 +1,14 @@
 package com.craftinginterpreters.lox;
 
 import java.util.List;
-import java.util.ArrayList; // [Cap. 10] chamada/argumentos
-import java.util.Map;       // [Cap. 11] mapa de resolução (locals)
-import java.util.HashMap;
-
-import static com.craftinginterpreters.lox.TokenType.*;
 
 /**
  * Interpreter (Interpretador)
  *
  * Executa a Árvore de Sintaxe Abstrata (AST) produzida pelo Parser.
- * Implementa os visitantes Expr.Visitor e Stmt.Visitor e mantém o estado
- * de execução através de Environment(s).
+ * Depois do Resolver, a AST é compilada uma vez pelo NodeCompiler em nós
+ * executáveis (StmtNode/ExprNode), que avaliam a si mesmos sobre Environment(s)
+ * sem o despacho accept/visit por nó.
  *
  * Referências:
  * - Crafting Interpreters — Cap. 7 (Evaluating Expressions)
@@ -22,28 +18,14 @@ import static com.craftinginterpreters.lox.TokenType.*;
  * - Crafting Interpreters — Cap. 11 (Resolving and Binding)
  * - Crafting Interpreters — Cap. 12 (Classes)
  */
-public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
+public class Interpreter {
 
     /**
      * Ambiente global (contém funções nativas e variáveis globais).
-     * Imutável enquanto instância do Interpretador.
+     * Imutável enquanto instância do Interpretador; compartilhado com a VM (--vm).
      * Referência: CI — Cap. 10 (Native functions / globals).
      */
-    private final Environment globals = new Environment();
-
-    /**
-     * Ambiente atual (stack de escopos). Inicialmente aponta para 'globals'.
-     * Referência: CI — Cap. 8 (Environments).
-     */
-    private Environment environment = globals;
-
-    /**
-     * Mapa usado pelo Resolver para indicar a distância (número de escopos)
-     * entre o escopo atual e o escopo onde uma variável foi declarada.
-     *
-     * Referência: CI — Cap. 11 (Resolver & Binding)
-     */
-    private final Map<Expr, Integer> locals = new HashMap<>();
+    final Environment globals = new Environment();
 
     /**
      * Construtor: registra funções nativas no ambiente global.
@@ -73,9 +55,10 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
      * Referência: CI — Cap. 8 (Executing statements)
      */
     public void interpret(List<Stmt> statements) {
+        StmtNode[] program = new NodeCompiler(this).compile(statements);
         try {
-            for (Stmt statement : statements) {
-                execute(statement);
+            for (StmtNode statement : program) {
+                statement.execute(globals);
             }
         } catch (RuntimeError error) {
             Lox.runtimeError(error);
@@ -83,364 +66,51 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     }
 
     /**
-     * Chamado pelo Resolver para gravar a distância de resolução de uma expressão.
-     * (Expressões que referenciam variáveis recebem uma distância para lookup rápido).
+     * Chamado pelo Resolver para gravar a resolução de uma variável local.
+     * A profundidade (número de escopos a subir) e o slot ficam no próprio nó,
+     * de modo que a leitura em tempo de execução é indexação direta do frame.
      *
      * Referência: CI — Cap. 11 (Resolver)
      */
-    void resolve(Expr expr, int depth) {
-        locals.put(expr, depth);
-    }
-
-    // ---------------------------------------------------------------------
-    // Execution helpers
-    // ---------------------------------------------------------------------
-
-    private void execute(Stmt stmt) {
-        stmt.accept(this);
+    void resolve(Expr expr, int depth, int slot) {
+        setResolution(expr, depth, slot);
     }
 
     /**
-     * Executa um bloco em um ambiente fornecido, preservando o ambiente anterior.
+     * Chamado pelo Resolver para variáveis que não são locais.
+     * O índice na tabela global fica no nó (com profundidade -1), e a leitura
+     * em tempo de execução dispensa o lookup pelo nome.
      *
-     * Referência: CI — Cap. 8 (Blocks / Environments)
-     */
-    void executeBlock(List<Stmt> statements, Environment environment) {
-        Environment previous = this.environment;
-        try {
-            this.environment = environment;
-            for (Stmt statement : statements) {
-                execute(statement);
-            }
-        } finally {
-            this.environment = previous;
-        }
-    }
-
-    // ---------------------------------------------------------------------
-    // Stmt.Visitor implementations
-    // ---------------------------------------------------------------------
-
-    @Override
-    public Void visitBlockStmt(Stmt.Block stmt) {
-        executeBlock(stmt.statements, new Environment(environment));
-        return null;
-    }
-
-    /**
-     * Execução de declaração de classe.
-     *
-     * Referência: CI — Cap. 12 (Classes)
-     * Gramática: classDecl → "class" IDENTIFIER "{" function* "}"
-     */
-    @Override
-    public Void visitClassStmt(Stmt.Class stmt) {
-        // Define o nome da classe no escopo atual antes de construir métodos (permite referências recursivas)
-        environment.define(stmt.name.lexeme, null);
-
-        Map<String, LoxFunction> methods = new HashMap<>();
-        for (Stmt.Function method : stmt.methods) {
-            boolean isInitializer = method.name.lexeme.equals("init");
-            LoxFunction function = new LoxFunction(method, environment, isInitializer);
-            methods.put(method.name.lexeme, function);
-        }
-
-        LoxClass klass = new LoxClass(stmt.name.lexeme, methods);
-        environment.assign(stmt.name, klass);
-        return null;
-    }
-
-    @Override
-    public Void visitExpressionStmt(Stmt.Expression stmt) {
-        evaluate(stmt.expression);
-        return null;
-    }
-
-    @Override
-    public Void visitIfStmt(Stmt.If stmt) {
-        if (isTruthy(evaluate(stmt.condition))) {
-            execute(stmt.thenBranch);
-        } else if (stmt.elseBranch != null) {
-            execute(stmt.elseBranch);
-        }
-        return null;
-    }
-
-    @Override
-    public Void visitPrintStmt(Stmt.Print stmt) {
-        Object value = evaluate(stmt.expression);
-        System.out.println(stringify(value));
-        return null;
-    }
-
-    @Override
-    public Void visitVarStmt(Stmt.Var stmt) {
-        Object value = null;
-        if (stmt.initializer != null) {
-            value = evaluate(stmt.initializer);
-        }
-        environment.define(stmt.name.lexeme, value);
-        return null;
-    }
-
-    @Override
-    public Void visitWhileStmt(Stmt.While stmt) {
-        while (isTruthy(evaluate(stmt.condition))) {
-            execute(stmt.body);
-        }
-        return null;
-    }
-
-    /**
-     * Declaração de função: armazenamos um LoxFunction no ambiente atual.
-     *
-     * Referência: CI — Cap. 10 (Function declarations)
-     */
-    @Override
-    public Void visitFunctionStmt(Stmt.Function stmt) {
-        LoxFunction function = new LoxFunction(stmt, environment, false);
-        environment.define(stmt.name.lexeme, function);
-        return null;
-    }
-
-    /**
-     * Return statement — interrompe o fluxo atual lançando a exceção Return.
-     *
-     * Referência: CI — Cap. 10 (Return)
-     */
-    @Override
-    public Void visitReturnStmt(Stmt.Return stmt) {
-        Object value = null;
-        if (stmt.value != null) value = evaluate(stmt.value);
-        throw new Return(value); // Exceção top-level usada para controlar retorno de função.
-    }
-
-    // ---------------------------------------------------------------------
-    // Expr.Visitor implementations
-    // ---------------------------------------------------------------------
-
-    private Object evaluate(Expr expr) {
-        return expr.accept(this);
-    }
-
-    /**
-     * Atribuição: usa 'locals' para decidir onde atribuir (assignAt) ou tratar como global.
-     *
-     * Referência: CI — Cap. 11 (Resolving) e Cap. 8 (Assignment semantics)
-     */
-    @Override
-    public Object visitAssignExpr(Expr.Assign expr) {
-        Object value = evaluate(expr.value);
-
-        Integer distance = locals.get(expr);
-        if (distance != null) {
-            environment.assignAt(distance, expr.name, value);
-        } else {
-            globals.assign(expr.name, value);
-        }
-
-        return value;
-    }
-
-    @Override
-    public Object visitBinaryExpr(Expr.Binary expr) {
-        Object left = evaluate(expr.left);
-        Object right = evaluate(expr.right);
-
-        switch (expr.operator.type) {
-            case GREATER:
-                checkNumberOperands(expr.operator, left, right);
-                return (double) left > (double) right;
-            case GREATER_EQUAL:
-                checkNumberOperands(expr.operator, left, right);
-                return (double) left >= (double) right;
-            case LESS:
-                checkNumberOperands(expr.operator, left, right);
-                return (double) left < (double) right;
-            case LESS_EQUAL:
-                checkNumberOperands(expr.operator, left, right);
-                return (double) left <= (double) right;
-            case BANG_EQUAL: return !isEqual(left, right);
-            case EQUAL_EQUAL: return isEqual(left, right);
-            case MINUS:
-                checkNumberOperands(expr.operator, left, right);
-                return (double) left - (double) right;
-            case PLUS:
-                if (left instanceof Double && right instanceof Double) {
-                    return (double) left + (double) right;
-                }
-                if (left instanceof String && right instanceof String) {
-                    return (String) left + (String) right;
-                }
-                throw new RuntimeError(expr.operator,
-                        "Operands must be two numbers or two strings.");
-            case SLASH:
-                checkNumberOperands(expr.operator, left, right);
-                return (double) left / (double) right;
-            case STAR:
-                checkNumberOperands(expr.operator, left, right);
-                return (double) left * (double) right;
-        }
-
-        // Unreachable
-        return null;
-    }
-
-    /**
-     * Chamada (call) a função/objeto.
-     *
-     * Referência: CI — Cap. 10 (Call and Arity)
-     */
-    @Override
-    public Object visitCallExpr(Expr.Call expr) {
-        Object callee = evaluate(expr.callee);
-
-        List<Object> arguments = new ArrayList<>();
-        for (Expr argument : expr.arguments) {
-            arguments.add(evaluate(argument));
-        }
-
-        if (!(callee instanceof LoxCallable)) {
-            throw new RuntimeError(expr.paren, "Can only call functions and classes.");
-        }
-
-        LoxCallable function = (LoxCallable) callee;
-        if (arguments.size() != function.arity()) {
-            throw new RuntimeError(expr.paren, "Expected " +
-                    function.arity() + " arguments but got " + arguments.size() + ".");
-        }
-
-        return function.call(this, arguments);
-    }
-
-    /**
-     * Acesso a propriedade (get).
-     *
-     * Referência: CI — Cap. 12 (Property access)
-     */
-    @Override
-    public Object visitGetExpr(Expr.Get expr) {
-        Object object = evaluate(expr.object);
-
-        if (object instanceof LoxInstance) {
-            return ((LoxInstance) object).get(expr.name);
-        }
-
-        throw new RuntimeError(expr.name, "Only instances have properties.");
-    }
-
-    @Override
-    public Object visitGroupingExpr(Expr.Grouping expr) {
-        return evaluate(expr.expression);
-    }
-
-    @Override
-    public Object visitLiteralExpr(Expr.Literal expr) {
-        return expr.value;
-    }
-
-    /**
-     * Expressões lógicas com short-circuit (and / or).
-     *
-     * Referência: CI — Cap. 9 (Short-circuit logic)
-     */
-    @Override
-    public Object visitLogicalExpr(Expr.Logical expr) {
-        Object left = evaluate(expr.left);
-
-        if (expr.operator.type == OR) {
-            if (isTruthy(left)) return left;
-        } else {
-            if (!isTruthy(left)) return left;
-        }
-
-        return evaluate(expr.right);
-    }
-
-    /**
-     * Definição de propriedade (set).
-     *
-     * Referência: CI — Cap. 12 (Set on instances)
-     */
-    @Override
-    public Object visitSetExpr(Expr.Set expr) {
-        Object object = evaluate(expr.object);
-        if (!(object instanceof LoxInstance)) {
-            throw new RuntimeError(expr.name, "Only instances have fields.");
-        }
-
-        Object value = evaluate(expr.value);
-        ((LoxInstance) object).set(expr.name, value);
-        return value;
-    }
-
-    /**
-     * 'this' — busca usando o mecanismo de resolução (locals).
-     *
-     * Referência: CI — Cap. 12 (this binding)
+     * Referência: CI — Cap. 11 (Resolver)
      */
-    @Override
-    public Object visitThisExpr(Expr.This expr) {
-        return lookUpVariable(expr.keyword, expr);
-    }
-
-    @Override
-    public Object visitUnaryExpr(Expr.Unary expr) {
-        Object right = evaluate(expr.right);
-
-        switch (expr.operator.type) {
-            case BANG:
-                return !isTruthy(right);
-            case MINUS:
-                checkNumberOperand(expr.operator, right);
-                return -(double) right;
-        }
-
-        // Unreachable
-        return null;
-    }
-
-    @Override
-    public Object visitVariableExpr(Expr.Variable expr) {
-        return lookUpVariable(expr.name, expr);
+    void resolveGlobal(Expr expr, Token name) {
+        setResolution(expr, -1, globals.globalSlot(name.lexeme()));
     }
 
-    /**
-     * Busca variável usando a informação de resolução (locals).
-     * Se não houver informação (não resolvida), assume global.
-     *
-     * Referência: CI — Cap. 11 (Resolver & Binding)
-     */
-    private Object lookUpVariable(Token name, Expr expr) {
-        Integer distance = locals.get(expr);
-        if (distance != null) {
-            return environment.getAt(distance, name.lexeme);
-        } else {
-            return globals.get(name);
+    private void setResolution(Expr expr, int depth, int slot) {
+        if (expr instanceof Expr.Variable variable) {
+            variable.depth = depth;
+            variable.slot = slot;
+        } else if (expr instanceof Expr.Assign assign) {
+            assign.depth = depth;
+            assign.slot = slot;
+        } else if (expr instanceof Expr.This keyword) {
+            keyword.depth = depth;
+            keyword.slot = slot;
         }
     }
 
     // ---------------------------------------------------------------------
-    // Helpers: Type checks, truthiness, equality e stringify
+    // Helpers: truthiness, equality e stringify (compartilhados com os nós e a VM)
     // ---------------------------------------------------------------------
 
-    private void checkNumberOperand(Token operator, Object operand) {
-        if (operand instanceof Double) return;
-        throw new RuntimeError(operator, "Operand must be a number.");
-    }
-
-    private void checkNumberOperands(Token operator, Object left, Object right) {
-        if (left instanceof Double && right instanceof Double) return;
-        throw new RuntimeError(operator, "Operands must be numbers.");
-    }
-
-    private boolean isTruthy(Object object) {
+    static boolean isTruthy(Object object) {
         if (object == null) return false;
         if (object instanceof Boolean) return (boolean) object;
         return true;
     }
 
-    private boolean isEqual(Object a, Object b) {
+    static boolean isEqual(Object a, Object b) {
         if (a == null && b == null) return true;
         if (a == null) return false;
         return a.equals(b);
@@ -450,7 +120,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
      * Converte valores para representação textual utilizada por 'print'.
      * Remove ".0" de doubles inteiros (comportamento do livro).
      */
-    private String stringify(Object object) {
+    static String stringify(Object object) {
         if (object == null) return "nil";
 
         if (object instanceof Double) {
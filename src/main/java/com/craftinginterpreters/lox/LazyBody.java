@@ -0,0 +1,112 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * LazyBody — Corpo de função ainda não analisado (Parser no modo preguiçoso).
+ *
+ * Bibliotecas grandes declaram muitas funções e métodos que uma execução não
+ * chama. No modo preguiçoso (--lazy) o Parser só faz uma pré-análise do corpo
+ * de cada função e método de nível superior, sem criar a AST, e guarda aqui
+ * onde ele começa; o Resolver e o NodeCompiler deixam o corpo de lado (ver
+ * StmtNode.Lazy). Na primeira chamada o corpo é analisado, resolvido e
+ * compilado, uma única vez para todas as closures e vínculos da declaração.
+ *
+ * Só as declarações de nível superior são adiadas: fora delas só há globais,
+ * então resolver o corpo depois, sozinho, dá o mesmo resultado que no passe
+ * normal do Resolver.
+ *
+ * Os erros do corpo aparecem ao carregar o arquivo, como no passe normal: os
+ * de sintaxe a pré-análise reporta na hora, e os de resolução ela guarda aqui
+ * para o Resolver reportar quando passar pela declaração (ver reportErrors),
+ * na mesma ordem e só se não houver erro de sintaxe. Um programa com erros
+ * não executa, chamado o corpo ou não.
+ */
+final class LazyBody {
+
+    // Os tokens do arquivo ficam vivos enquanto a declaração existir.
+    private final TokenBuffer tokens;
+    // Índice do primeiro token depois do '{'.
+    private final int start;
+    private final boolean method;
+
+    // Erros de resolução achados na pré-análise, na ordem do Resolver.
+    private List<EarlyError> errors = List.of();
+
+    // O corpo tem erros, já reportados: as próximas chamadas só falham.
+    private boolean failed = false;
+
+    LazyBody(TokenBuffer tokens, int start, boolean method) {
+        this.tokens = tokens;
+        this.start = start;
+        this.method = method;
+    }
+
+    /** Guarda um erro de resolução do corpo (ver Parser, pré-análise). */
+    void error(Token token, String message) {
+        if (errors.isEmpty()) errors = new ArrayList<>();
+        errors.add(new EarlyError(token, message));
+    }
+
+    /** Quantos erros já foram guardados. */
+    int errorCount() {
+        return errors.size();
+    }
+
+    /**
+     * Passa os erros [from, to) para depois dos seguintes: o Resolver visita
+     * o valor de uma atribuição antes do objeto, e o incremento de um 'for'
+     * depois do corpo.
+     */
+    void moveErrors(int from, int to) {
+        if (from == to) return;
+        Collections.rotate(errors.subList(from, errors.size()), from - to);
+    }
+
+    /** Reporta os erros guardados (ver Resolver.resolveFunction). */
+    void reportErrors() {
+        for (EarlyError error : errors) {
+            Lox.error(error.token, error.message);
+        }
+    }
+
+    /**
+     * Analisa, resolve e compila o corpo de 'function' (cujo 'lazy' é este).
+     */
+    StmtNode[] compile(Interpreter interpreter, Stmt.Function function) {
+        if (!failed) {
+            // hadError é zerado para saber se os erros vieram deste corpo.
+            boolean hadError = Lox.hadError;
+            Lox.hadError = false;
+
+            List<Stmt> body = new Parser(tokens, start).functionBody();
+            if (!Lox.hadError) {
+                function.body.addAll(body);
+                function.lazy = null;
+                new Resolver(interpreter).resolveBody(function, method);
+            }
+
+            failed = Lox.hadError;
+            Lox.hadError |= hadError;
+        }
+
+        // Não acontece num programa que executou: os erros apareceram ao carregar.
+        if (failed) {
+            throw new RuntimeError(function.name,
+                    "Body of '" + function.name.lexeme() + "' has errors.");
+        }
+        return new NodeCompiler(interpreter).function(function);
+    }
+
+    private static final class EarlyError {
+        final Token token;
+        final String message;
+
+        EarlyError(Token token, String message) {
+            this.token = token;
+            this.message = message;
+        }
+    }
+}
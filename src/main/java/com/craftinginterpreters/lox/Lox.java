@@ -3,9 +3,13 @@ package com.craftinginterpreters.lox;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.nio.charset.Charset;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 
 /**
@@ -32,29 +36,89 @@ public class Lox {
     // É estática para que o estado (variáveis globais) persista durante uma sessão REPL.
     private static final Interpreter interpreter = new Interpreter();
 
+    // Backend alternativo (bytecode + VM de pilha), ativado com --vm.
+    // Quando nulo, o programa é executado pelo Interpreter (tree-walking).
+    private static VM vm = null;
+
+    // Formato do relatório de --stats ("table" ou "json"); nulo se desativado.
+    private static String statsFormat = null;
+
+    // --stream: o arquivo é lido em blocos em vez de mapeado (ver StreamScanner).
+    private static boolean stream = false;
+
+    // --lazy: corpos de funções analisados só na primeira chamada (ver LazyBody).
+    private static boolean lazy = false;
+
     /**
      * Ponto de entrada da aplicação Java.
      * Suporta dois modos:
-     * 1. Arquivo: jlox [caminho/arquivo.lox]
-     * 2. REPL: jlox (sem argumentos)
+     * 1. Arquivo: jlox [--vm] [caminho/arquivo.lox]
+     * 2. REPL: jlox [--vm] (sem script)
+     * 3. Benchmarks: jlox --bench ... / jlox --compare ... (ver BenchmarkRunner)
+     *
+     * A opção --vm compila o programa para bytecode e o executa na VM.
+     * A opção --ic-stats lista, ao final, a taxa de acerto dos caches inline
+     * de cada acesso a propriedade (ver PropertyCache).
+     * A opção --stats mostra tempo, alocação e contagens de cada fase (ver RunStats).
+     * A opção --stream lê o arquivo em blocos, varrendo conforme o parsing avança.
+     * A opção --lazy adia a análise dos corpos de funções até a primeira chamada
+     * (só no Interpreter, sem --vm nem --stream).
      */
     public static void main(String[] args) throws IOException {
-        if (args.length > 1) {
-            System.out.println("Usage: jlox [script]");
-            System.exit(64); // [Cap. 4] Código padrão UNIX para erro de uso (EX_USAGE).
-        } else if (args.length == 1) {
-            runFile(args[0]);
+        // Modos de benchmark: --bench (executa o corpus) e --compare (compara relatórios).
+        if (args.length > 0 && (args[0].equals("--bench") || args[0].equals("--compare"))) {
+            System.exit(BenchmarkRunner.main(args));
+        }
+
+        String script = null;
+        for (String arg : args) {
+            if (arg.equals("--vm")) {
+                vm = new VM(interpreter);
+            } else if (arg.equals("--ic-stats")) {
+                PropertyCache.enableStats();
+            } else if (arg.equals("--stats") || arg.equals("--stats=table")) {
+                statsFormat = "table";
+            } else if (arg.equals("--stats=json")) {
+                statsFormat = "json";
+            } else if (arg.equals("--stream")) {
+                stream = true;
+            } else if (arg.equals("--lazy")) {
+                lazy = true;
+            } else if (arg.startsWith("--") || script != null) {
+                usage();
+            } else {
+                script = arg;
+            }
+        }
+
+        if (script != null) {
+            runFile(script);
         } else {
             runPrompt();
         }
     }
 
+    private static void usage() {
+        System.out.println("Usage: jlox [--vm] [--ic-stats] [--stats[=table|json]] [--stream] [--lazy] [script]");
+        System.exit(64); // [Cap. 4] Código padrão UNIX para erro de uso (EX_USAGE).
+    }
+
     /**
      * [Cap. 4] Modo Arquivo: Lê o arquivo inteiro do disco e executa.
+     * O arquivo é mapeado em memória e lido como UTF-8 pelo Scanner (ver Source).
+     * Com --stream, ou se passar do limite de um mapeamento (2 GiB), é lido em
+     * blocos pelo StreamScanner.
      */
     private static void runFile(String path) throws IOException {
-        byte[] bytes = Files.readAllBytes(Paths.get(path));
-        run(new String(bytes, Charset.defaultCharset()));
+        Path file = Paths.get(path);
+        if (stream || Files.size(file) > Integer.MAX_VALUE) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                run(channel, interpreter, vm);
+            }
+        } else {
+            run(Source.map(file), interpreter, vm);
+        }
+        PropertyCache.report(System.err);
 
         // Indica erro na saída do sistema se algo falhar.
         if (hadError) System.exit(65);
@@ -80,6 +144,7 @@ public class Lox {
             // Se o usuário errar uma linha, não queremos matar a sessão inteira.
             hadError = false;
         }
+        PropertyCache.report(System.err);
     }
 
     /**
@@ -88,30 +153,122 @@ public class Lox {
      * @param source O código fonte cru (String).
      */
     private static void run(String source) {
+        run(source, interpreter, vm);
+    }
+
+    /**
+     * Executa o código em um Interpreter (e, se não nulo, na VM) específico.
+     * Usado também pelo modo --bench, que roda cada programa em estado novo.
+     */
+    static void run(String source, Interpreter interpreter, VM vm) {
+        run(Source.of(source), interpreter, vm);
+    }
+
+    static void run(Source source, Interpreter interpreter, VM vm) {
+        RunStats stats = statsFormat == null ? null : new RunStats();
+
         // 1. Análise Léxica (Scanning) - [Cap. 4]
-        // Transforma o texto bruto em uma lista de tokens.
-        Scanner scanner = new Scanner(source);
-        List<Token> tokens = scanner.scanTokens();
+        // Transforma o texto bruto em uma sequência de tokens.
+        if (stats != null) stats.start("scan");
+        // Códigos grandes são varridos em blocos paralelos (ver ParallelScanner).
+        TokenBuffer tokens = ParallelScanner.scan(source);
+        if (stats != null) stats.stopScan(tokens);
 
         // 2. Análise Sintática (Parsing) - [Cap. 6]
-        // Transforma a lista de tokens em uma Árvore de Sintaxe Abstrata (AST).
+        // Transforma a sequência de tokens em uma Árvore de Sintaxe Abstrata (AST).
+        if (stats != null) stats.start("parse");
         Parser parser = new Parser(tokens);
+        // A VM compila tudo antes de executar: o corpo adiado não teria onde entrar.
+        if (lazy && vm == null) parser.lazy();
         List<Stmt> statements = parser.parse();
+        if (stats != null) stats.stopParse(statements);
 
         // Se houver erro de sintaxe, paramos aqui. Não tentamos analisar ou executar.
-        if (hadError) return;
+        if (hadError) {
+            printStats(stats);
+            return;
+        }
 
         // 3. Análise Semântica (Resolving) - [Cap. 11]
         // Passe estático que resolve os escopos das variáveis antes da execução.
+        if (stats != null) stats.start("resolve");
         Resolver resolver = new Resolver(interpreter);
         resolver.resolve(statements);
+        if (stats != null) stats.stopResolve();
 
         // Se o Resolver encontrar erros (ex: return fora de função), paramos.
-        if (hadError) return;
+        if (hadError) {
+            printStats(stats);
+            return;
+        }
 
         // 4. Interpretação (Execution) - [Cap. 8]
-        // Executa a AST percorrendo os nós e realizando as operações.
-        interpreter.interpret(statements);
+        // Executa a AST percorrendo os nós, ou compila para bytecode e roda na VM.
+        if (stats != null) stats.start("execute");
+        if (vm != null) {
+            vm.interpret(statements);
+        } else {
+            interpreter.interpret(statements);
+        }
+        if (stats != null) stats.stopExecute(vm != null);
+        printStats(stats);
+    }
+
+    /**
+     * Executa o código lido do canal em blocos, uma declaração de nível
+     * superior por vez: cada uma é analisada, resolvida e executada antes da
+     * seguinte ser lida, e sua AST fica livre para o coletor depois disso (só
+     * o que funções e classes declaradas referenciam continua vivo). A memória
+     * não cresce com o tamanho do arquivo.
+     *
+     * Como as declarações anteriores já executaram quando um erro aparece, a
+     * regra do modo arquivo vira: depois do primeiro erro (léxico, de sintaxe,
+     * de resolução ou de execução) nada mais é executado, mas o restante do
+     * arquivo ainda é analisado para reportar os erros de sintaxe e, enquanto
+     * não houver um deles, os de resolução. As fases se intercalam e aparecem
+     * em --stats como uma só, "stream".
+     */
+    static void run(ReadableByteChannel channel, Interpreter interpreter, VM vm) throws IOException {
+        RunStats stats = statsFormat == null ? null : new RunStats();
+        if (stats != null) stats.start("stream");
+
+        Parser parser = new Parser(StreamScanner.tokens(channel));
+        Resolver resolver = new Resolver(interpreter);
+        // hadError é zerado antes de cada fase para saber de onde veio o erro.
+        boolean syntaxError = false;
+        boolean failed = false;
+        try {
+            while (true) {
+                hadError = false;
+                Stmt statement = parser.next();
+                syntaxError |= hadError;
+                failed |= hadError;
+                if (statement == null) break;
+                if (syntaxError) continue;
+
+                List<Stmt> single = List.of(statement);
+                resolver.resolve(single);
+                failed |= hadError;
+                if (failed || hadRuntimeError) continue;
+
+                if (vm != null) {
+                    vm.interpret(single);
+                } else {
+                    interpreter.interpret(single);
+                }
+            }
+        } catch (UncheckedIOException error) {
+            throw error.getCause();
+        } finally {
+            hadError = failed;
+        }
+
+        if (stats != null) stats.stopExecute(vm != null);
+        printStats(stats);
+    }
+
+    private static void printStats(RunStats stats) {
+        if (stats != null) stats.print(System.err, statsFormat.equals("json"));
     }
 
     // --- Tratamento de Erros e Relatórios ---
@@ -130,7 +287,7 @@ public class Lox {
         if (token.type == TokenType.EOF) {
             report(token.line, " at end", message);
         } else {
-            report(token.line, " at '" + token.lexeme + "'", message);
+            report(token.line, " at '" + token.lexeme() + "'", message);
         }
     }
 
@@ -1,5 +1,6 @@
 package com.craftinginterpreters.lox;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -10,6 +11,12 @@ import java.util.List;
  * 1. Funções nativas (definidas em Java, ex: clock).
  * 2. Funções definidas pelo usuário (LoxFunction).
  * 3. Classes (LoxClass) - que são chamadas para instanciar objetos.
+ * <p>
+ * Convenção de chamada: os nós de chamada usam as entradas por aridade
+ * (call0..call3) ou por array, que não alocam uma lista por chamada.
+ * A forma com List é mantida como adaptador de compatibilidade: quem só a
+ * implementa (ex.: funções nativas) continua funcionando pelas implementações
+ * padrão abaixo, e LoxFunction/LoxClass a convertem para array.
  *
  * Referência: Crafting Interpreters - Capítulo 10 (Functions).
  */
@@ -30,4 +37,25 @@ interface LoxCallable {
      * @return O resultado da execução (ou null se for void, ou a nova instância se for uma classe).
      */
     Object call(Interpreter interpreter, List<Object> arguments);
+
+    /** Argumentos já avaliados em um array (qualquer aridade). */
+    default Object call(Interpreter interpreter, Object[] arguments) {
+        return call(interpreter, Arrays.asList(arguments));
+    }
+
+    default Object call0(Interpreter interpreter) {
+        return call(interpreter, new Object[0]);
+    }
+
+    default Object call1(Interpreter interpreter, Object a) {
+        return call(interpreter, new Object[] {a});
+    }
+
+    default Object call2(Interpreter interpreter, Object a, Object b) {
+        return call(interpreter, new Object[] {a, b});
+    }
+
+    default Object call3(Interpreter interpreter, Object a, Object b, Object c) {
+        return call(interpreter, new Object[] {a, b, c});
+    }
 }
\ No newline at end of file
@@ -16,8 +16,16 @@ class LoxClass implements LoxCallable {
     
     // [Cap. 12] Tabela de métodos da classe.
     // Armazena as definições de função que pertencem a esta classe.
+    // É um IdentityHashMap: as chaves são nomes canônicos (ver SymbolTable).
     private final Map<String, LoxFunction> methods;
 
+    // Shape raiz das instâncias desta classe (ver Shape).
+    final Shape rootShape = new Shape();
+
+    // Maior número de campos já visto numa instância; dimensiona o array de
+    // valores das próximas instâncias e evita realocações enquanto o init roda.
+    int fieldCapacity = 0;
+
     LoxClass(String name, Map<String, LoxFunction> methods) {
         this.name = name;
         this.methods = methods;
@@ -28,10 +36,7 @@ class LoxClass implements LoxCallable {
      * Usado quando uma instância tenta acessar uma propriedade que não é um campo.
      */
     LoxFunction findMethod(String name) {
-        if (methods.containsKey(name)) {
-            return methods.get(name);
-        }
-        return null;
+        return methods.get(name);
     }
 
     @Override
@@ -43,20 +48,53 @@ class LoxClass implements LoxCallable {
      * [Cap. 12] Processo de Instanciação.
      * 1. Cria a instância vazia.
      * 2. Verifica se existe um construtor ("init").
-     * 3. Se existir, executa-o vinculando a nova instância.
+     * 3. Se existir, executa-o com 'this' = nova instância.
      * 4. Retorna a instância.
+     *
+     * A forma com List é o adaptador de compatibilidade (ver LoxCallable).
      */
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
+        return call(interpreter, arguments.toArray());
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, Object[] arguments) {
         LoxInstance instance = new LoxInstance(this);
+        LoxFunction initializer = findMethod("init");
+        if (initializer != null) initializer.invoke(instance, arguments);
+        return instance;
+    }
 
-        // Busca pelo inicializador (construtor)
+    @Override
+    public Object call0(Interpreter interpreter) {
+        LoxInstance instance = new LoxInstance(this);
         LoxFunction initializer = findMethod("init");
-        if (initializer != null) {
-            // Vincula 'this' ao novo objeto e executa a lógica de inicialização.
-            initializer.bind(instance).call(interpreter, arguments);
-        }
+        if (initializer != null) initializer.invoke0(instance);
+        return instance;
+    }
 
+    @Override
+    public Object call1(Interpreter interpreter, Object a) {
+        LoxInstance instance = new LoxInstance(this);
+        LoxFunction initializer = findMethod("init");
+        if (initializer != null) initializer.invoke1(instance, a);
+        return instance;
+    }
+
+    @Override
+    public Object call2(Interpreter interpreter, Object a, Object b) {
+        LoxInstance instance = new LoxInstance(this);
+        LoxFunction initializer = findMethod("init");
+        if (initializer != null) initializer.invoke2(instance, a, b);
+        return instance;
+    }
+
+    @Override
+    public Object call3(Interpreter interpreter, Object a, Object b, Object c) {
+        LoxInstance instance = new LoxInstance(this);
+        LoxFunction initializer = findMethod("init");
+        if (initializer != null) initializer.invoke3(instance, a, b, c);
         return instance;
     }
 
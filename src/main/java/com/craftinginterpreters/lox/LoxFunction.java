@@ -11,35 +11,48 @@ import java.util.List;
  * Referência: Crafting Interpreters - Capítulo 10 (Functions) e 12 (Classes).
  */
 class LoxFunction implements LoxCallable {
-    private final Stmt.Function declaration;
-    
+    final Stmt.Function declaration;
+
+    // Corpo compilado pelo NodeCompiler (nulo em funções da VM, que usam o Chunk).
+    final StmtNode[] body;
+
     // [Cap. 10] Closure: O ambiente que estava ativo quando a função foi declarada.
-    // Para métodos, este ambiente inclui o "this" vinculado à instância.
-    private final Environment closure;
+    // Nulo em funções da VM, que capturam as variáveis em Upvalues.
+    final Environment closure;
 
     // [Cap. 12] Indica se esta função é um inicializador (construtor "init").
-    private final boolean isInitializer;
+    final boolean isInitializer;
+
+    // [Cap. 12] Instância vinculada por bind (nula para funções e métodos não vinculados).
+    final LoxInstance receiver;
 
-    LoxFunction(Stmt.Function declaration, Environment closure, boolean isInitializer) {
+    LoxFunction(Stmt.Function declaration, StmtNode[] body, Environment closure,
+                boolean isInitializer) {
+        this(declaration, body, closure, isInitializer, null);
+    }
+
+    LoxFunction(Stmt.Function declaration, StmtNode[] body, Environment closure,
+                boolean isInitializer, LoxInstance receiver) {
         this.isInitializer = isInitializer;
         this.closure = closure;
         this.declaration = declaration;
+        this.body = body;
+        this.receiver = receiver;
     }
 
     /**
      * [Cap. 12] Cria um vínculo (binding) entre o método e uma instância.
-     * Retorna uma nova função cujo closure tem uma variável "this" definida.
+     * Só é necessário quando o método é usado como valor (ex.: var m = obj.m;);
+     * chamadas obj.m(...) usam invoke diretamente, sem criar o vínculo.
      */
     LoxFunction bind(LoxInstance instance) {
-        Environment environment = new Environment(closure);
-        environment.define("this", instance);
         // O método vinculado mantém a propriedade de ser (ou não) um inicializador.
-        return new LoxFunction(declaration, environment, isInitializer);
+        return new LoxFunction(declaration, body, closure, isInitializer, instance);
     }
 
     @Override
     public String toString() {
-        return "<fn " + declaration.name.lexeme + ">";
+        return "<fn " + declaration.name.lexeme() + ">";
     }
 
     @Override
@@ -47,31 +60,112 @@ class LoxFunction implements LoxCallable {
         return declaration.params.size();
     }
 
+    /**
+     * Adaptador da forma com List (ver LoxCallable).
+     */
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
-        // [Cap. 10] Cria um novo ambiente para a execução da função,
-        // tendo o closure original como pai (escopo léxico).
-        Environment environment = new Environment(closure);
+        return call(interpreter, arguments.toArray());
+    }
+
+    // Método vinculado: 'this' é a instância guardada no vínculo (nula em funções).
+
+    @Override
+    public Object call(Interpreter interpreter, Object[] arguments) {
+        return invoke(receiver, arguments);
+    }
+
+    @Override
+    public Object call0(Interpreter interpreter) {
+        return invoke0(receiver);
+    }
+
+    @Override
+    public Object call1(Interpreter interpreter, Object a) {
+        return invoke1(receiver, a);
+    }
+
+    @Override
+    public Object call2(Interpreter interpreter, Object a, Object b) {
+        return invoke2(receiver, a, b);
+    }
 
-        for (int i = 0; i < declaration.params.size(); i++) {
-            environment.define(declaration.params.get(i).lexeme,
-                arguments.get(i));
+    @Override
+    public Object call3(Interpreter interpreter, Object a, Object b, Object c) {
+        return invoke3(receiver, a, b, c);
+    }
+
+    /**
+     * [Cap. 12] Chama o método com 'this' = instance, sem criar um vínculo.
+     * 'this' ocupa o slot 0 do frame, seguido pelos parâmetros (ver Resolver).
+     * Para funções comuns, instance é nula e os parâmetros começam no slot 0.
+     */
+    Object invoke(LoxInstance instance, Object[] arguments) {
+        Environment environment = frame(instance);
+        for (Object argument : arguments) {
+            environment.define(null, argument);
         }
+        return execute(environment);
+    }
+
+    // Entradas por aridade: preenchem o frame direto, sem array de argumentos.
+
+    Object invoke0(LoxInstance instance) {
+        return execute(frame(instance));
+    }
+
+    Object invoke1(LoxInstance instance, Object a) {
+        Environment environment = frame(instance);
+        environment.define(null, a);
+        return execute(environment);
+    }
 
-        try {
-            interpreter.executeBlock(declaration.body, environment);
-        } catch (Return returnValue) {
-            // [Cap. 12] Regra do Construtor:
-            // Se estamos num inicializador, um 'return' (mesmo vazio) deve retornar 'this'.
-            // O Resolver já garante que não podemos retornar um valor explicitamente.
-            if (isInitializer) return closure.getAt(0, "this");
+    Object invoke2(LoxInstance instance, Object a, Object b) {
+        Environment environment = frame(instance);
+        environment.define(null, a);
+        environment.define(null, b);
+        return execute(environment);
+    }
+
+    Object invoke3(LoxInstance instance, Object a, Object b, Object c) {
+        Environment environment = frame(instance);
+        environment.define(null, a);
+        environment.define(null, b);
+        environment.define(null, c);
+        return execute(environment);
+    }
+
+    /**
+     * [Cap. 10] Cria um novo ambiente para a execução da função,
+     * tendo o closure original como pai (escopo léxico).
+     * O tamanho do frame ('this', parâmetros e locais do corpo) vem do Resolver.
+     */
+    private Environment frame(LoxInstance instance) {
+        Environment environment = new Environment(closure, declaration.localCount);
+        if (instance != null) environment.define("this", instance);
+        return environment;
+    }
+
+    /**
+     * Executa o corpo no frame já preenchido. VmFunction sobrescreve para
+     * rodar o Chunk na VM.
+     */
+    Object execute(Environment environment) {
+        for (StmtNode statement : body) {
+            Object result = statement.execute(environment);
+            if (result != StmtNode.NORMAL) {
+                // [Cap. 12] Regra do Construtor:
+                // Se estamos num inicializador, um 'return' (mesmo vazio) deve retornar 'this'.
+                // O Resolver já garante que não podemos retornar um valor explicitamente.
+                if (isInitializer) return environment.get(0);
 
-            return returnValue.value;
+                return result;
+            }
         }
 
         // [Cap. 12] Se a função terminar sem 'return' e for um init, retorna 'this' implicitamente.
-        if (isInitializer) return closure.getAt(0, "this");
+        if (isInitializer) return environment.get(0);
 
         return null;
     }
-}
\ No newline at end of file
+}
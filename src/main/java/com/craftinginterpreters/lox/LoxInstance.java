@@ -1,6 +1,7 @@
 package com.craftinginterpreters.lox;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
@@ -9,7 +10,8 @@ import java.util.Map;
  * Referência: Crafting Interpreters – Capítulo 12 (Classes).
  *
  * Cada instância possui:
- *  - Um conjunto de campos próprios (fields).
+ *  - Um conjunto de campos próprios, descritos por um Shape compartilhado
+ *    (nome → slot) e guardados em um array compacto.
  *  - Uma referência à sua classe, responsável por fornecer os métodos.
  */
 class LoxInstance {
@@ -18,18 +20,31 @@ class LoxInstance {
      * Classe da qual esta instância foi criada.
      * Imutável após construção.
      */
-    private final LoxClass klass;
+    final LoxClass klass;
+
+    private static final Object[] NO_VALUES = new Object[0];
 
     /**
      * Campos da instância.
      *
      * Conforme o livro (cap. 12), instâncias podem ter campos adicionados
      * dinamicamente via atribuição, mesmo que não tenham sido declarados antes.
+     * Cada campo novo faz a instância transitar para o Shape filho; o valor
+     * fica em values[slot]. Lidos diretamente pelos caches inline (PropertyCache).
+     */
+    Shape shape;
+    Object[] values;
+
+    /**
+     * Campos em modo dicionário (shape == Shape.DICTIONARY): instâncias com
+     * mais de Shape.MAX_FIELDS campos. Nulo antes disso.
      */
-    private final Map<String, Object> fields = new HashMap<>();
+    private Map<String, Object> dictionary;
 
     LoxInstance(LoxClass klass) {
         this.klass = klass;
+        this.shape = klass.rootShape;
+        this.values = klass.fieldCapacity == 0 ? NO_VALUES : new Object[klass.fieldCapacity];
     }
 
     /**
@@ -42,12 +57,17 @@ class LoxInstance {
      */
     Object get(Token name) {
         // 1. Propriedade (campo) definido na instância
-        if (fields.containsKey(name.lexeme)) {
-            return fields.get(name.lexeme);
+        if (dictionary != null) {
+            if (dictionary.containsKey(name.lexeme())) return dictionary.get(name.lexeme());
+        } else {
+            int slot = shape.slotOf(name.lexeme());
+            if (slot >= 0) {
+                return values[slot];
+            }
         }
 
         // 2. Método definido na classe
-        LoxFunction method = klass.findMethod(name.lexeme);
+        LoxFunction method = klass.findMethod(name.lexeme());
         if (method != null) {
             // Vincula o método à instância, criando o ambiente com "this"
             return method.bind(this);
@@ -55,7 +75,7 @@ class LoxInstance {
 
         // 3. Nada encontrado
         throw new RuntimeError(name,
-                "Undefined property '" + name.lexeme + "'.");
+                "Undefined property '" + name.lexeme() + "'.");
     }
 
     /**
@@ -63,7 +83,59 @@ class LoxInstance {
      * Em Lox, campos podem ser criados dinamicamente.
      */
     void set(Token name, Object value) {
-        fields.put(name.lexeme, value);
+        if (dictionary != null) {
+            dictionary.put(name.lexeme(), value);
+            return;
+        }
+
+        int slot = shape.slotOf(name.lexeme());
+        if (slot < 0) {
+            Shape next = shape.withField(name.lexeme());
+            if (next == Shape.DICTIONARY) {
+                toDictionary();
+                dictionary.put(name.lexeme(), value);
+            } else {
+                addField(next, value);
+            }
+            return;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Tem um campo com o nome dado (não conta os métodos da classe)?
+     */
+    boolean hasField(String name) {
+        if (dictionary != null) return dictionary.containsKey(name);
+        return shape.slotOf(name) >= 0;
+    }
+
+    /**
+     * Acrescenta um campo novo: 'next' é o Shape filho do atual, e o valor
+     * ocupa seu último slot.
+     */
+    void addField(Shape next, Object value) {
+        int slot = next.size() - 1;
+        if (slot == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, slot * 2));
+        }
+        if (next.size() > klass.fieldCapacity) {
+            klass.fieldCapacity = next.size();
+        }
+        shape = next;
+        values[slot] = value;
+    }
+
+    /**
+     * Passa os campos para um mapa próprio da instância (Shape.DICTIONARY).
+     */
+    private void toDictionary() {
+        dictionary = new IdentityHashMap<>();
+        for (int slot = 0; slot < shape.size(); slot++) {
+            dictionary.put(shape.name(slot), values[slot]);
+        }
+        shape = Shape.DICTIONARY;
+        values = NO_VALUES;
     }
 
     /**
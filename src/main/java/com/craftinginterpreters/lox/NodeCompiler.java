@@ -0,0 +1,258 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+/**
+ * NodeCompiler — Compila a AST resolvida em nós executáveis (ExprNode/StmtNode).
+ *
+ * Percorre Stmt/Expr uma única vez, depois do Resolver, e escolhe para cada nó
+ * uma classe especializada: operadores binários viram uma classe por operador,
+ * variáveis viram leitura de slot local, de escopo envolvente ou global, e
+ * blocos sem declarações não abrem frame. O Interpreter executa a árvore
+ * resultante em vez de visitar Stmt/Expr a cada execução.
+ *
+ * Referências:
+ *  - Crafting Interpreters — Cap. 8 (Statements and State)
+ *  - Crafting Interpreters — Cap. 11 (Resolving and Binding)
+ */
+class NodeCompiler implements Expr.Visitor<ExprNode>, Stmt.Visitor<StmtNode> {
+
+    /** Usado pelas chamadas (argumento de LoxCallable.call). */
+    private final Interpreter interpreter;
+
+    /** Tabela global compartilhada (índices das globais). */
+    private final Environment globals;
+
+    /** Profundidade de escopo: 0 no topo (declarações globais). */
+    private int scopeDepth = 0;
+
+    NodeCompiler(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        this.globals = interpreter.globals;
+    }
+
+    /**
+     * Compila um programa (lista de declarações de topo).
+     */
+    StmtNode[] compile(List<Stmt> statements) {
+        StmtNode[] nodes = new StmtNode[statements.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = compile(statements.get(i));
+        }
+        return nodes;
+    }
+
+    // -------------------------------------------------------------------------
+    // Statements
+    // -------------------------------------------------------------------------
+
+    @Override
+    public StmtNode visitBlockStmt(Stmt.Block stmt) {
+        // Bloco sem declarações: o Resolver não abriu escopo para ele.
+        if (stmt.localCount == 0) {
+            return new StmtNode.Sequence(compile(stmt.statements));
+        }
+
+        scopeDepth++;
+        StmtNode[] statements = compile(stmt.statements);
+        scopeDepth--;
+        return new StmtNode.Block(statements, stmt.localCount);
+    }
+
+    @Override
+    public StmtNode visitClassStmt(Stmt.Class stmt) {
+        int count = stmt.methods.size();
+        Stmt.Function[] declarations = stmt.methods.toArray(new Stmt.Function[count]);
+        StmtNode[][] bodies = new StmtNode[count][];
+        for (int i = 0; i < count; i++) {
+            bodies[i] = function(declarations[i]);
+        }
+        return define(stmt.name,
+                new ExprNode.Class(stmt.name.lexeme(), declarations, bodies));
+    }
+
+    @Override
+    public StmtNode visitExpressionStmt(Stmt.Expression stmt) {
+        return new StmtNode.Expression(compile(stmt.expression));
+    }
+
+    @Override
+    public StmtNode visitFunctionStmt(Stmt.Function stmt) {
+        return define(stmt.name, new ExprNode.Function(stmt, function(stmt)));
+    }
+
+    @Override
+    public StmtNode visitIfStmt(Stmt.If stmt) {
+        StmtNode elseBranch = stmt.elseBranch == null ? null : compile(stmt.elseBranch);
+        return new StmtNode.If(compile(stmt.condition), compile(stmt.thenBranch), elseBranch);
+    }
+
+    @Override
+    public StmtNode visitPrintStmt(Stmt.Print stmt) {
+        return new StmtNode.Print(compile(stmt.expression));
+    }
+
+    @Override
+    public StmtNode visitReturnStmt(Stmt.Return stmt) {
+        return new StmtNode.Return(stmt.value == null ? null : compile(stmt.value));
+    }
+
+    @Override
+    public StmtNode visitVarStmt(Stmt.Var stmt) {
+        ExprNode initializer = stmt.initializer == null
+                ? new ExprNode.Constant(null)
+                : compile(stmt.initializer);
+        return define(stmt.name, initializer);
+    }
+
+    @Override
+    public StmtNode visitWhileStmt(Stmt.While stmt) {
+        return new StmtNode.While(compile(stmt.condition), compile(stmt.body));
+    }
+
+    // -------------------------------------------------------------------------
+    // Expressions
+    // -------------------------------------------------------------------------
+
+    @Override
+    public ExprNode visitAssignExpr(Expr.Assign expr) {
+        ExprNode value = compile(expr.value);
+        if (expr.depth < 0) {
+            return new ExprNode.SetGlobal(globals, expr.slot, expr.name, value);
+        }
+        if (expr.depth == 0) return new ExprNode.SetSlot(expr.slot, value);
+        return new ExprNode.SetLocal(expr.depth, expr.slot, value);
+    }
+
+    @Override
+    public ExprNode visitBinaryExpr(Expr.Binary expr) {
+        ExprNode left = compile(expr.left);
+        ExprNode right = compile(expr.right);
+        Token operator = expr.operator;
+
+        switch (operator.type) {
+            case GREATER:       return new ExprNode.Greater(left, operator, right);
+            case GREATER_EQUAL: return new ExprNode.GreaterEqual(left, operator, right);
+            case LESS:          return new ExprNode.Less(left, operator, right);
+            case LESS_EQUAL:    return new ExprNode.LessEqual(left, operator, right);
+            case BANG_EQUAL:    return new ExprNode.NotEqual(left, operator, right);
+            case EQUAL_EQUAL:   return new ExprNode.Equal(left, operator, right);
+            case MINUS:         return new ExprNode.Subtract(left, operator, right);
+            case PLUS:          return new ExprNode.Add(left, operator, right);
+            case SLASH:         return new ExprNode.Divide(left, operator, right);
+            case STAR:          return new ExprNode.Multiply(left, operator, right);
+            default:
+                throw new IllegalStateException("Unexpected binary operator " + operator.type);
+        }
+    }
+
+    @Override
+    public ExprNode visitCallExpr(Expr.Call expr) {
+        // obj.nome(args) vira um único nó que chama o método sem vinculá-lo.
+        ExprNode object = expr.callee instanceof Expr.Get get ? compile(get.object) : null;
+        ExprNode callee = object == null ? compile(expr.callee) : null;
+
+        ExprNode[] arguments = new ExprNode[expr.arguments.size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = compile(expr.arguments.get(i));
+        }
+
+        if (object != null) {
+            Token name = ((Expr.Get) expr.callee).name;
+            return new ExprNode.Invoke(interpreter, object, name, arguments, expr.paren);
+        }
+        return new ExprNode.Call(interpreter, callee, arguments, expr.paren);
+    }
+
+    @Override
+    public ExprNode visitGetExpr(Expr.Get expr) {
+        return new ExprNode.GetProperty(compile(expr.object), expr.name);
+    }
+
+    @Override
+    public ExprNode visitGroupingExpr(Expr.Grouping expr) {
+        // Agrupamento só existe na sintaxe: o nó é o da expressão interna.
+        return compile(expr.expression);
+    }
+
+    @Override
+    public ExprNode visitLiteralExpr(Expr.Literal expr) {
+        return new ExprNode.Constant(expr.value);
+    }
+
+    @Override
+    public ExprNode visitLogicalExpr(Expr.Logical expr) {
+        ExprNode left = compile(expr.left);
+        ExprNode right = compile(expr.right);
+        if (expr.operator.type == TokenType.OR) return new ExprNode.Or(left, right);
+        return new ExprNode.And(left, right);
+    }
+
+    @Override
+    public ExprNode visitSetExpr(Expr.Set expr) {
+        return new ExprNode.SetProperty(compile(expr.object), expr.name, compile(expr.value));
+    }
+
+    @Override
+    public ExprNode visitThisExpr(Expr.This expr) {
+        return variable(expr.depth, expr.slot, expr.keyword);
+    }
+
+    @Override
+    public ExprNode visitUnaryExpr(Expr.Unary expr) {
+        ExprNode right = compile(expr.right);
+        if (expr.operator.type == TokenType.BANG) return new ExprNode.Not(right);
+        return new ExprNode.Negate(expr.operator, right);
+    }
+
+    @Override
+    public ExprNode visitVariableExpr(Expr.Variable expr) {
+        return variable(expr.depth, expr.slot, expr.name);
+    }
+
+    // -------------------------------------------------------------------------
+    // Helpers
+    // -------------------------------------------------------------------------
+
+    private StmtNode compile(Stmt stmt) {
+        return stmt.accept(this);
+    }
+
+    private ExprNode compile(Expr expr) {
+        return expr.accept(this);
+    }
+
+    /**
+     * Compila o corpo de uma função; parâmetros e locais ficam no frame da chamada.
+     * Um corpo ainda não analisado vira um nó que o compila na primeira chamada
+     * (ver LazyBody).
+     */
+    StmtNode[] function(Stmt.Function function) {
+        if (function.lazy != null) {
+            StmtNode[] body = new StmtNode[1];
+            body[0] = new StmtNode.Lazy(interpreter, function, body);
+            return body;
+        }
+
+        scopeDepth++;
+        StmtNode[] body = compile(function.body);
+        scopeDepth--;
+        return body;
+    }
+
+    private StmtNode define(Token name, ExprNode value) {
+        if (scopeDepth == 0) {
+            return new StmtNode.DefineGlobal(globals, globals.globalSlot(name.lexeme()), value);
+        }
+        return new StmtNode.DefineLocal(value);
+    }
+
+    /**
+     * Leitura pela resolução gravada no nó: profundidade negativa indica global.
+     */
+    private ExprNode variable(int depth, int slot, Token name) {
+        if (depth < 0) return new ExprNode.GetGlobal(globals, slot, name);
+        if (depth == 0) return new ExprNode.GetSlot(slot);
+        return new ExprNode.GetLocal(depth, slot);
+    }
+}
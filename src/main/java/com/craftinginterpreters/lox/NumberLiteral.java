@@ -0,0 +1,79 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * NumberLiteral — Valor de um literal NUMBER lido direto dos bytes do código.
+ *
+ * O Scanner só aceita dígitos com uma parte fracionária opcional ("123",
+ * "4.5"), então o caso comum é montado sem criar String: os dígitos viram um
+ * inteiro exato (mantissa) e, se houver fração, ele é dividido pela potência
+ * de 10 correspondente. Com mantissa até 2^53 e no máximo 22 casas decimais,
+ * os dois operandos são doubles exatos e a divisão IEEE dá o mesmo resultado
+ * arredondado de Double.parseDouble (o "caminho rápido" de Clinger). Fora
+ * disso, o texto vai para Double.parseDouble.
+ *
+ * Inteiros pequenos (0 a 1023) usam Doubles pré-criados: o mesmo objeto é
+ * compartilhado pelo Token.literal, pelo Expr.Literal e pelas constantes.
+ */
+final class NumberLiteral {
+
+    private static final long MAX_EXACT = 1L << 53;
+
+    // 10^0 .. 10^22: todas representáveis exatamente em double.
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    private static final Double[] SMALL_INTEGERS = new Double[1024];
+
+    static {
+        double power = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+        for (int i = 0; i < SMALL_INTEGERS.length; i++) {
+            SMALL_INTEGERS[i] = (double) i;
+        }
+    }
+
+    private NumberLiteral() {}
+
+    /**
+     * Valor do literal nos bytes [start, start + length) de um NUMBER já
+     * reconhecido pelo Scanner (dígitos, opcionalmente '.' e mais dígitos).
+     */
+    static Double parse(Source source, int start, int length) {
+        long mantissa = 0;
+        int fractionDigits = -1; // -1: ainda não passou pelo '.'
+        int end = start + length;
+
+        for (int i = start; i < end; i++) {
+            byte c = source.at(i);
+            if (c == '.') {
+                fractionDigits = 0;
+                continue;
+            }
+            mantissa = mantissa * 10 + (c - '0');
+            if (mantissa > MAX_EXACT) {
+                return box(Double.parseDouble(source.text(start, length)));
+            }
+            if (fractionDigits >= 0) fractionDigits++;
+        }
+
+        if (fractionDigits <= 0) return box(mantissa);
+        if (fractionDigits < POWERS_OF_TEN.length) {
+            return box(mantissa / POWERS_OF_TEN[fractionDigits]);
+        }
+        return box(Double.parseDouble(source.text(start, length)));
+    }
+
+    /**
+     * O Double do valor, compartilhado quando é um inteiro pequeno.
+     */
+    static Double box(double value) {
+        int index = (int) value;
+        if (index == value && index >= 0 && index < SMALL_INTEGERS.length
+                && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0)) {
+            return SMALL_INTEGERS[index];
+        }
+        return value;
+    }
+}
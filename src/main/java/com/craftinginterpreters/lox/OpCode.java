@@ -0,0 +1,104 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * OpCode — Instruções da máquina virtual de pilha (VM).
+ *
+ * Cada instrução ocupa uma posição do array de código de um Chunk, seguida
+ * pelos seus operandos (também inteiros). Os comentários indicam os operandos
+ * e o efeito na pilha de operandos.
+ *
+ * Constantes int (e não enum) para que o 'switch' do laço de despacho
+ * compile para um tableswitch direto, sem passar por ordinal().
+ *
+ * Referência: Crafting Interpreters — Cap. 14 (Chunks of Bytecode)
+ * e Cap. 15 (A Virtual Machine).
+ */
+final class OpCode {
+
+    private OpCode() {}
+
+    // --- Constantes e literais ---
+    static final int CONSTANT      = 0;  // [índice]         → valor
+    static final int NIL           = 1;  //                  → nil
+    static final int TRUE          = 2;  //                  → true
+    static final int FALSE         = 3;  //                  → false
+    static final int POP           = 4;  // valor            →
+
+    // --- Variáveis (resolução feita pelo Resolver) ---
+    // Locais são slots da pilha relativos à base do frame (Cap. 22); as
+    // capturadas por closures são lidas pela Upvalue da função (Cap. 25).
+    static final int GET_LOCAL     = 5;  // [slot]           → valor
+    static final int SET_LOCAL     = 6;  // [slot]           valor → valor
+    static final int GET_UPVALUE   = 7;  // [índice]         → valor
+    static final int GET_GLOBAL    = 8;  // [slot, token]    → valor
+    static final int SET_GLOBAL    = 9;  // [slot, token]    valor → valor
+    static final int DEFINE_GLOBAL = 10; // [slot]           valor →
+
+    // --- Propriedades (Cap. 12) ---
+    // O operando é um PropertyCache (cache inline do ponto, com o token do nome).
+    static final int GET_PROPERTY  = 11; // [cache]          instância → valor
+    static final int SET_PROPERTY  = 12; // [cache]          instância valor → valor
+    static final int CHECK_FIELDS  = 13; // [cache]          instância → instância
+
+    // --- Operadores (o token do operador é usado nas mensagens de erro) ---
+    static final int EQUAL         = 14; //                  a b → bool
+    static final int NOT_EQUAL     = 15; //                  a b → bool
+    static final int GREATER       = 16; // [token]          a b → bool
+    static final int GREATER_EQUAL = 17; // [token]          a b → bool
+    static final int LESS          = 18; // [token]          a b → bool
+    static final int LESS_EQUAL    = 19; // [token]          a b → bool
+    static final int ADD           = 20; // [token]          a b → a + b
+    static final int SUBTRACT      = 21; // [token]          a b → a - b
+    static final int MULTIPLY      = 22; // [token]          a b → a * b
+    static final int DIVIDE        = 23; // [token]          a b → a / b
+    static final int NOT           = 24; //                  a → !a
+    static final int NEGATE        = 25; // [token]          a → -a
+
+    // --- Statements e controle de fluxo (Cap. 8 e 9) ---
+    static final int PRINT         = 26; //                  valor →
+    static final int JUMP          = 27; // [deslocamento]
+    static final int JUMP_IF_FALSE = 28; // [deslocamento]   (não desempilha)
+    static final int JUMP_IF_TRUE  = 29; // [deslocamento]   (não desempilha)
+    static final int LOOP          = 30; // [deslocamento]   (salto para trás)
+    static final int POP_SCOPE     = 31; // [nº de locais]   locais →  (fim de bloco)
+    static final int CLOSE_SCOPE   = 32; // [nº de locais]   locais →  (fecha as upvalues antes)
+
+    // --- Funções e classes (Cap. 10 e 12) ---
+    static final int CALL          = 33; // [nº args, token] função args → resultado
+    static final int CLOSURE       = 34; // [chunk]          → função
+    static final int CLASS         = 35; // [nome, n, chunk×n] → classe
+    static final int RETURN        = 36; //                  valor →
+
+    // --- Superinstruções (combinações frequentes, menos despachos) ---
+    static final int POP_JUMP_IF_FALSE = 37; // [deslocamento] cond → (condição de if/while)
+    static final int STORE_LOCAL   = 38; // [slot]           valor → (atribuição como statement)
+    static final int STORE_GLOBAL  = 39; // [slot, token]    valor →
+
+    // --- Atribuição a variáveis capturadas (Cap. 25) ---
+    static final int SET_UPVALUE   = 40; // [índice]         valor → valor
+    static final int STORE_UPVALUE = 41; // [índice]         valor →
+
+    // --- Chamada de método obj.nome(args) sem criar o método vinculado ---
+    // GET_METHOD deixa o método e a instância (ou o valor do campo e nil);
+    // INVOKE chama o método com 'this' = instância, ou o valor como em CALL.
+    static final int GET_METHOD    = 42; // [cache]          instância → método instância
+    static final int INVOKE        = 43; // [nº args, token] método instância args → resultado
+
+    /**
+     * Efeito de cada instrução na altura da pilha de operandos.
+     * CALL, INVOKE, POP_SCOPE e CLOSE_SCOPE são variáveis (−nº de argumentos ou
+     * de locais) e são tratados pelo compilador.
+     */
+    static final int[] STACK_EFFECT = {
+        1, 1, 1, 1, -1,             // CONSTANT NIL TRUE FALSE POP
+        1, 0, 1, 1, 0, -1,          // GET/SET_LOCAL GET_UPVALUE GET/SET/DEFINE_GLOBAL
+        0, -1, 0,                   // GET_PROPERTY SET_PROPERTY CHECK_FIELDS
+        -1, -1, -1, -1, -1, -1,     // EQUAL NOT_EQUAL GREATER GREATER_EQUAL LESS LESS_EQUAL
+        -1, -1, -1, -1, 0, 0,       // ADD SUBTRACT MULTIPLY DIVIDE NOT NEGATE
+        -1, 0, 0, 0, 0, 0, 0,       // PRINT JUMP JUMP_IF_FALSE JUMP_IF_TRUE LOOP POP/CLOSE_SCOPE
+        0, 1, 1, -1,                // CALL CLOSURE CLASS RETURN
+        -1, -1, -1,                 // POP_JUMP_IF_FALSE STORE_LOCAL STORE_GLOBAL
+        0, -1,                      // SET_UPVALUE STORE_UPVALUE
+        1, -1                       // GET_METHOD INVOKE
+    };
+}
@@ -0,0 +1,162 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * ParallelScanner — Análise léxica de códigos grandes em blocos paralelos.
+ *
+ * O código é dividido em blocos que terminam logo depois de um '\n', e cada
+ * bloco é varrido por um Scanner próprio no ForkJoinPool comum, com sua
+ * SymbolTable e contando linhas a partir de 1. Depois os blocos são costurados
+ * num único TokenBuffer: as linhas recebem o deslocamento das quebras de linha
+ * anteriores, os índices de símbolo o das tabelas anteriores (ver
+ * SymbolTable.concat), e os erros léxicos são reportados na ordem do arquivo,
+ * como o Scanner sequencial os reportaria. Só a passagem que resolve as
+ * divisas é sequencial; a cópia para o resultado também é paralela.
+ *
+ * Um bloco só pode começar no meio de um token se o anterior terminar dentro
+ * de uma string de várias linhas (Lox só tem comentários de linha, que acabam
+ * no '\n' da divisa). Nesse caso o Scanner do bloco registra onde a string
+ * abriu, e o trecho a partir dela até o fim do bloco seguinte é varrido de
+ * novo, sequencialmente; os tokens e erros do bloco seguinte são descartados.
+ *
+ * Códigos pequenos, ou uma máquina com um único processador, usam o Scanner
+ * sequencial: o resultado é o mesmo.
+ */
+final class ParallelScanner {
+
+    // Abaixo disso dividir não compensa: o custo de coordenação domina.
+    static final int THRESHOLD = 4 << 20;
+    private static final int MIN_CHUNK = 1 << 20;
+
+    private ParallelScanner() {}
+
+    /**
+     * Os tokens do código, em blocos paralelos quando ele é grande o bastante.
+     */
+    static TokenBuffer scan(Source source) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        if (source.length < THRESHOLD || processors < 2) {
+            return new Scanner(source).scan();
+        }
+        // Alguns blocos por processador equilibram a carga entre eles.
+        int chunk = Math.max(MIN_CHUNK, source.length / (processors * 4));
+        return scan(source, chunk);
+    }
+
+    /**
+     * Varre em blocos de cerca de 'chunkSize' bytes, independente do tamanho
+     * do código e do número de processadores.
+     */
+    static TokenBuffer scan(Source source, int chunkSize) {
+        int[] bounds = split(source, chunkSize);
+        int chunks = bounds.length - 1;
+
+        // O bloco 0 é varrido nesta thread enquanto o pool cuida dos demais.
+        List<ForkJoinTask<Scanner>> tasks = new ArrayList<>(chunks);
+        tasks.add(null);
+        for (int i = 1; i < chunks; i++) {
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            tasks.add(ForkJoinPool.commonPool().submit(() -> scanChunk(source, from, to, 1)));
+        }
+
+        // 1. Na ordem do arquivo: resolve as strings abertas nas divisas, reporta
+        //    os erros e calcula o deslocamento de linha de cada pedaço.
+        Scanner[] pieces = new Scanner[chunks];
+        int[] lineOffsets = new int[chunks];
+        int count = 0;
+        int lines = 0; // quebras de linha antes do pedaço atual
+        int i = 0;
+        Scanner chunk = scanChunk(source, bounds[0], bounds[1], 1);
+        while (true) {
+            pieces[count] = chunk;
+            lineOffsets[count++] = lines;
+            for (Scanner.ScanError error : chunk.errors()) {
+                Lox.error(error.line + lines, error.message);
+            }
+
+            if (chunk.openString < 0) {
+                lines += chunk.line() - 1;
+                if (++i == chunks) break;
+                chunk = tasks.get(i).join();
+                continue;
+            }
+
+            // Uma string aberta no fim do bloco i: varre de novo a partir dela
+            // até o fim do bloco i + 1, de onde a divisão volta a valer.
+            if (i + 1 == chunks) {
+                Lox.error(lines + chunk.line(), "Unterminated string.");
+                lines += chunk.line() - 1;
+                break;
+            }
+            int from = chunk.openString;
+            int line = lines + chunk.openStringLine;
+            tasks.get(++i).cancel(false);
+            chunk = scanChunk(source, from, bounds[i + 1], line);
+            lines = 0; // o novo Scanner já conta linhas absolutas
+        }
+
+        // 2. Costura: as tabelas de símbolos em sequência e cada pedaço copiado,
+        //    em paralelo, para a sua faixa do resultado.
+        SymbolTable[] tables = new SymbolTable[count];
+        int total = 0;
+        for (int k = 0; k < count; k++) {
+            tables[k] = pieces[k].tokens().symbols;
+            total += pieces[k].tokens().size();
+        }
+        TokenBuffer tokens = TokenBuffer.sized(source, SymbolTable.concat(tables, count), total);
+
+        List<ForkJoinTask<?>> copies = new ArrayList<>(count);
+        int at = 0;
+        int symbols = 0;
+        for (int k = 0; k < count; k++) {
+            TokenBuffer piece = pieces[k].tokens();
+            int pieceAt = at;
+            int lineOffset = lineOffsets[k];
+            int symbolOffset = symbols;
+            copies.add(ForkJoinTask.adapt(() -> tokens.fill(pieceAt, piece, lineOffset, symbolOffset)));
+            at += piece.size();
+            symbols += piece.symbols.size();
+        }
+        ForkJoinTask.invokeAll(copies);
+
+        tokens.add(TokenType.EOF, source.length, 0, lines + 1);
+        return tokens;
+    }
+
+    /**
+     * Posições de início dos blocos, mais o fim do código: cada divisa fica logo
+     * depois do primeiro '\n' a partir de 'chunkSize' bytes do início anterior.
+     */
+    private static int[] split(Source source, int chunkSize) {
+        List<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        int from = 0;
+        while (source.length - from > chunkSize) {
+            int newline = source.lineEnd(from + chunkSize);
+            if (newline >= source.length - 1) break;
+            // lineEnd também para num byte 0, que não serve de divisa.
+            if (source.at(newline) != '\n') {
+                from = newline + 1 - chunkSize;
+                continue;
+            }
+            from = newline + 1;
+            bounds.add(from);
+        }
+        bounds.add(source.length);
+
+        int[] result = new int[bounds.size()];
+        for (int i = 0; i < result.length; i++) result[i] = bounds.get(i);
+        return result;
+    }
+
+    private static Scanner scanChunk(Source source, int from, int to, int line) {
+        Scanner scanner = new Scanner(source, from, to, line);
+        scanner.scanRange();
+        return scanner;
+    }
+}
@@ -9,8 +9,9 @@ import static com.craftinginterpreters.lox.TokenType.*;
 /**
  * Parser (Analisador Sintático)
  *
- * Constrói a Árvore de Sintaxe Abstrata (AST) a partir da lista de tokens produzida
- * pelo Scanner. Implementa a técnica de "Recursive Descent Parsing".
+ * Constrói a Árvore de Sintaxe Abstrata (AST) a partir da sequência de tokens
+ * produzida pelo Scanner (TokenBuffer). Implementa a técnica de "Recursive Descent Parsing"
+ * para declarações e comandos, e um parser de Pratt (precedência por tabela) para expressões.
  *
  * Referências Acadêmicas:
  * - Crafting Interpreters, Cap. 6 — Parsing Expressions
@@ -24,17 +25,52 @@ import static com.craftinginterpreters.lox.TokenType.*;
  */
 public class Parser {
 
-    /** Classe auxiliar usada para encerrar recursões devido a erros de sintaxe. */
-    private static class ParseError extends RuntimeException {}
+    /**
+     * Classe auxiliar usada para encerrar recursões devido a erros de sintaxe.
+     * Sem stack trace: só desempilha até declaration(), que nunca o consulta.
+     */
+    private static class ParseError extends RuntimeException {
+        ParseError() {
+            super(null, null, false, false);
+        }
+    }
 
     /** Limite padrão definido no livro para quantidade de parâmetros e argumentos. */
     private static final int MAX_PARAMETERS = 255;
 
-    private final List<Token> tokens;
+    // Tokens no formato compacto do Scanner: os tipos são lidos direto dos arrays
+    // e um Token só é criado quando vai para a AST (ver previous()). No modo
+    // streaming, só o token atual e o anterior estão disponíveis.
+    private final TokenBuffer tokens;
     private int current = 0;
 
-    public Parser(List<Token> tokens) {
+    // Modo preguiçoso: os corpos das funções e métodos de nível superior só
+    // passam pela pré-análise e viram AST na primeira chamada (ver LazyBody).
+    private boolean lazy = false;
+    // Blocos abertos em volta da declaração atual: 0 no nível superior.
+    private int depth = 0;
+
+    // Pré-análise de um corpo adiado (ver skimBlock): o LazyBody que guarda os
+    // erros de resolução, os nomes locais declarados (os do escopo atual a
+    // partir de skimScope) e o contexto que o Resolver teria no ponto atual.
+    private LazyBody skim;
+    private final List<String> skimLocals = new ArrayList<>();
+    private int skimScope = 0;
+    private String skimInitializing;
+    private boolean skimClass;
+    private boolean skimInitializer;
+
+    Parser(TokenBuffer tokens) {
+        this(tokens, 0);
+    }
+
+    /**
+     * Parser que começa no token de índice 'start', o início de uma
+     * declaração de nível superior (ver Document).
+     */
+    Parser(TokenBuffer tokens, int start) {
         this.tokens = tokens;
+        this.current = start;
     }
 
     // =========================================================================
@@ -51,15 +87,53 @@ public class Parser {
      */
     public List<Stmt> parse() {
         List<Stmt> statements = new ArrayList<>();
+        for (Stmt decl = next(); decl != null; decl = next()) {
+            statements.add(decl);
+        }
+        return statements;
+    }
+
+    /**
+     * A próxima declaração de nível superior, ou null no fim do código. As
+     * declarações com erro de sintaxe são reportadas e puladas.
+     * Permite executar o programa uma declaração por vez (ver Lox.run).
+     */
+    Stmt next() {
         while (!isAtEnd()) {
             Stmt decl = declaration();
-            if (decl != null) {
-                statements.add(decl);
-            }
+            if (decl != null) return decl;
         }
-        return statements;
+        return null;
     }
 
+    /**
+     * Passa a pré-analisar os corpos das funções e dos métodos de nível
+     * superior, sem criar a AST (ver skimBlock): fora deles só há globais,
+     * então podem ser analisados e resolvidos depois, sozinhos.
+     * Só para um TokenBuffer completo (não streaming), que o corpo guarda.
+     */
+    Parser lazy() {
+        lazy = true;
+        return this;
+    }
+
+    /**
+     * O corpo adiado no modo preguiçoso, com o Parser logo depois do '{'.
+     * As funções aninhadas nele são analisadas por completo.
+     */
+    List<Stmt> functionBody() {
+        try {
+            return block();
+        } catch (ParseError error) {
+            // Já reportado: a recuperação passou do '}' do corpo.
+            return new ArrayList<>();
+        }
+    }
+
+    /** Índice do próximo token a consumir. */
+    int position() {
+        return current;
+    }
 
     // =========================================================================
     //  DECLARAÇÕES (VAR, FUN, CLASS)
@@ -96,14 +170,14 @@ public class Parser {
      */
     private Stmt classDeclaration() {
         Token name = consume(IDENTIFIER, "Expect class name.");
-        consume(LEFT_BRACE, "Expect '{' before class body.");
+        expect(LEFT_BRACE, "Expect '{' before class body.");
 
         List<Stmt.Function> methods = new ArrayList<>();
-        while (!check(RIGHT_BRACE) && !isAtEnd()) {
+        while (!checkAny(BLOCK_END)) {
             methods.add(function("method"));
         }
 
-        consume(RIGHT_BRACE, "Expect '}' after class body.");
+        expect(RIGHT_BRACE, "Expect '}' after class body.");
         return new Stmt.Class(name, methods);
     }
 
@@ -117,26 +191,55 @@ public class Parser {
      */
     private Stmt.Function function(String kind) {
         Token name = consume(IDENTIFIER, "Expect " + kind + " name.");
-        consume(LEFT_PAREN, "Expect '(' after " + kind + " name.");
+        expect(LEFT_PAREN, "Expect '(' after " + kind + " name.");
 
         List<Token> parameters = new ArrayList<>();
 
         if (!check(RIGHT_PAREN)) {
             do {
                 if (parameters.size() >= MAX_PARAMETERS) {
-                    error(peek(), "Can't have more than " + MAX_PARAMETERS + " parameters.");
+                    error(current, "Can't have more than " + MAX_PARAMETERS + " parameters.");
                 }
                 parameters.add(consume(IDENTIFIER, "Expect parameter name."));
             } while (match(COMMA));
         }
 
-        consume(RIGHT_PAREN, "Expect ')' after parameters.");
-        consume(LEFT_BRACE, "Expect '{' before " + kind + " body.");
+        expect(RIGHT_PAREN, "Expect ')' after parameters.");
+        expect(LEFT_BRACE, "Expect '{' before " + kind + " body.");
+
+        if (lazy && depth == 0) return lazyFunction(name, parameters, kind);
 
         List<Stmt> body = block();
         return new Stmt.Function(name, parameters, body);
     }
 
+    /**
+     * Modo preguiçoso: no lugar do corpo, uma pré-análise que segue a mesma
+     * gramática sem criar a AST (ver skimBlock). Os erros de sintaxe do corpo
+     * são reportados agora, com as mesmas mensagens e a mesma recuperação, e
+     * os de resolução ficam no LazyBody até o Resolver passar pela função.
+     */
+    private Stmt.Function lazyFunction(Token name, List<Token> parameters, String kind) {
+        LazyBody lazy = new LazyBody(tokens, current, kind.equals("method"));
+
+        skim = lazy;
+        skimClass = kind.equals("method");
+        skimInitializer = skimClass && name.lexeme().equals("init");
+        skimScope = 0;
+        skimLocals.clear();
+        for (Token parameter : parameters) declareLocal(parameter);
+        try {
+            skimBlockBody();
+        } finally {
+            skim = null;
+        }
+
+        // O corpo é preenchido nesta lista quando for analisado.
+        Stmt.Function function = new Stmt.Function(name, parameters, new ArrayList<>());
+        function.lazy = lazy;
+        return function;
+    }
+
     /**
      * Referência:
      * Crafting Interpreters — Cap. 8 (Statements and State)
@@ -150,7 +253,7 @@ public class Parser {
         Expr initializer = null;
         if (match(EQUAL)) initializer = expression();
 
-        consume(SEMICOLON, "Expect ';' after variable declaration.");
+        expect(SEMICOLON, "Expect ';' after variable declaration.");
         return new Stmt.Var(name, initializer);
     }
 
@@ -196,7 +299,7 @@ public class Parser {
             value = expression();
         }
 
-        consume(SEMICOLON, "Expect ';' after return value.");
+        expect(SEMICOLON, "Expect ';' after return value.");
         return new Stmt.Return(keyword, value);
     }
 
@@ -212,7 +315,7 @@ public class Parser {
      * Observação: O "for" é traduzido internamente (desugared) para um "while".
      */
     private Stmt forStatement() {
-        consume(LEFT_PAREN, "Expect '(' after 'for'.");
+        expect(LEFT_PAREN, "Expect '(' after 'for'.");
 
         Stmt initializer;
         if (match(SEMICOLON)) {
@@ -227,14 +330,14 @@ public class Parser {
         if (!check(SEMICOLON)) {
             condition = expression();
         }
-        consume(SEMICOLON, "Expect ';' after loop condition.");
+        expect(SEMICOLON, "Expect ';' after loop condition.");
 
         Expr increment = null;
         if (!check(RIGHT_PAREN)) {
             increment = expression();
         }
 
-        consume(RIGHT_PAREN, "Expect ')' after for clauses.");
+        expect(RIGHT_PAREN, "Expect ')' after for clauses.");
         Stmt body = statement();
 
         if (increment != null) {
@@ -262,9 +365,9 @@ public class Parser {
      *   ifStmt → "if" "(" expression ")" statement ( "else" statement )?
      */
     private Stmt ifStatement() {
-        consume(LEFT_PAREN, "Expect '(' after 'if'.");
+        expect(LEFT_PAREN, "Expect '(' after 'if'.");
         Expr condition = expression();
-        consume(RIGHT_PAREN, "Expect ')' after if condition.");
+        expect(RIGHT_PAREN, "Expect ')' after if condition.");
 
         Stmt thenBranch = statement();
         Stmt elseBranch = null;
@@ -283,7 +386,7 @@ public class Parser {
      */
     private Stmt printStatement() {
         Expr value = expression();
-        consume(SEMICOLON, "Expect ';' after value.");
+        expect(SEMICOLON, "Expect ';' after value.");
         return new Stmt.Print(value);
     }
 
@@ -295,9 +398,9 @@ public class Parser {
      *   whileStmt → "while" "(" expression ")" statement
      */
     private Stmt whileStatement() {
-        consume(LEFT_PAREN, "Expect '(' after 'while'.");
+        expect(LEFT_PAREN, "Expect '(' after 'while'.");
         Expr condition = expression();
-        consume(RIGHT_PAREN, "Expect ')' after condition.");
+        expect(RIGHT_PAREN, "Expect ')' after condition.");
 
         return new Stmt.While(condition, statement());
     }
@@ -312,12 +415,15 @@ public class Parser {
     private List<Stmt> block() {
         List<Stmt> statements = new ArrayList<>();
 
-        while (!check(RIGHT_BRACE) && !isAtEnd()) {
+        // declaration() trata os erros: nada escapa do laço sem passar pelo depth--.
+        depth++;
+        while (!checkAny(BLOCK_END)) {
             Stmt decl = declaration();
             if (decl != null) statements.add(decl);
         }
+        depth--;
 
-        consume(RIGHT_BRACE, "Expect '}' after block.");
+        expect(RIGHT_BRACE, "Expect '}' after block.");
         return statements;
     }
 
@@ -329,15 +435,49 @@ public class Parser {
      */
     private Stmt expressionStatement() {
         Expr expr = expression();
-        consume(SEMICOLON, "Expect ';' after expression.");
+        expect(SEMICOLON, "Expect ';' after expression.");
         return new Stmt.Expression(expr);
     }
 
 
     // =========================================================================
-    //  EXPRESSÕES (RECURSIVE DESCENT — PRECEDÊNCIA)
+    //  EXPRESSÕES (PRATT — PRECEDÊNCIA POR TABELA)
     // =========================================================================
 
+    // Níveis de precedência, do mais fraco ao mais forte. A gramática é a
+    // mesma da descida recursiva do Cap. 6 (uma função por nível); aqui cada
+    // nível é um número e um único laço cuida de todos os operadores infixos,
+    // como no parser de Pratt do Cap. 17.
+    private static final int PREC_NONE       = 0;
+    private static final int PREC_ASSIGNMENT = 1;  // =
+    private static final int PREC_OR         = 2;  // or
+    private static final int PREC_AND        = 3;  // and
+    private static final int PREC_EQUALITY   = 4;  // == !=
+    private static final int PREC_COMPARISON = 5;  // < > <= >=
+    private static final int PREC_TERM       = 6;  // + -
+    private static final int PREC_FACTOR     = 7;  // * /
+    private static final int PREC_UNARY      = 8;  // ! -
+    private static final int PREC_CALL       = 9;  // . ()
+
+    // Precedência de cada tipo de token como operador infixo, indexada pelo
+    // ordinal; PREC_NONE para os que não são operadores infixos (inclui EOF).
+    private static final byte[] INFIX = new byte[TokenType.values().length];
+
+    static {
+        infix(PREC_ASSIGNMENT, EQUAL);
+        infix(PREC_OR, OR);
+        infix(PREC_AND, AND);
+        infix(PREC_EQUALITY, BANG_EQUAL, EQUAL_EQUAL);
+        infix(PREC_COMPARISON, GREATER, GREATER_EQUAL, LESS, LESS_EQUAL);
+        infix(PREC_TERM, MINUS, PLUS);
+        infix(PREC_FACTOR, SLASH, STAR);
+        infix(PREC_CALL, LEFT_PAREN, DOT);
+    }
+
+    private static void infix(int precedence, TokenType... types) {
+        for (TokenType type : types) INFIX[type.ordinal()] = (byte) precedence;
+    }
+
     /**
      * Referência:
      * Crafting Interpreters — Cap. 6 (Parsing Expressions)
@@ -345,235 +485,496 @@ public class Parser {
      *   expression → assignment
      */
     private Expr expression() {
-        return assignment();
+        return parsePrecedence(PREC_ASSIGNMENT);
     }
 
     /**
+     * Uma expressão cujos operadores infixos têm precedência >= 'precedence'.
+     *
+     * Os binários são associativos à esquerda: o operando direito é lido um
+     * nível acima, e o laço continua com o resultado como operando esquerdo.
+     * Equivale às regras logic_or → ... → call do livro, mas sem uma chamada
+     * por nível de precedência para cada expressão primária.
+     *
      * Referência:
-     * Crafting Interpreters — Cap. 8 e Cap. 12
-     * Gramática:
-     *   assignment → ( call "." IDENTIFIER "=" assignment )
-     *               | IDENTIFIER "=" assignment
-     *               | logic_or
+     * Crafting Interpreters — Cap. 17.6 (A Pratt Parser)
      */
-    private Expr assignment() {
-        Expr expr = or();
+    private Expr parsePrecedence(int precedence) {
+        Expr expr = prefix();
 
-        if (match(EQUAL)) {
-            Token equals = previous();
-            Expr value = assignment();
+        while (true) {
+            TokenType type = peekType();
+            int infix = INFIX[type.ordinal()];
+            // PREC_NONE é menor que qualquer nível pedido: fim da expressão.
+            if (infix < precedence) return expr;
+            advance();
 
-            if (expr instanceof Expr.Variable var) {
-                return new Expr.Assign(var.name, value);
-            } else if (expr instanceof Expr.Get get) {
-                return new Expr.Set(get.object, get.name, value);
+            switch (type) {
+                case EQUAL:
+                    return assignment(expr);
+                case LEFT_PAREN:
+                    expr = finishCall(expr);
+                    break;
+                case DOT: {
+                    Token name = consume(IDENTIFIER, "Expect property name after '.'.");
+                    expr = new Expr.Get(expr, name);
+                    break;
+                }
+                case OR:
+                case AND: {
+                    Token operator = previous();
+                    Expr right = parsePrecedence(infix + 1);
+                    expr = new Expr.Logical(expr, operator, right);
+                    break;
+                }
+                default: {
+                    Token operator = previous();
+                    Expr right = parsePrecedence(infix + 1);
+                    expr = new Expr.Binary(expr, operator, right);
+                    break;
+                }
             }
-
-            error(equals, "Invalid assignment target.");
         }
-
-        return expr;
     }
 
     /**
      * Referência:
-     * Crafting Interpreters — Cap. 9 (Control Flow)
+     * Crafting Interpreters — Cap. 8 e Cap. 12
      * Gramática:
-     *   logic_or → logic_and ( "or" logic_and )*
+     *   assignment → ( call "." IDENTIFIER "=" assignment )
+     *               | IDENTIFIER "=" assignment
+     *               | logic_or
+     *
+     * Chamado com o '=' já consumido e o alvo já lido.
      */
-    private Expr or() {
-        Expr expr = and();
-
-        while (match(OR)) {
-            Token operator = previous();
-            Expr right = and();
-            expr = new Expr.Logical(expr, operator, right);
+    private Expr assignment(Expr target) {
+        // A linha, não a posição: no modo streaming o '=' já terá saído da janela.
+        int equalsLine = tokens.line(current - 1);
+        Expr value = parsePrecedence(PREC_ASSIGNMENT);
+
+        if (target instanceof Expr.Variable var) {
+            return new Expr.Assign(var.name, value);
+        } else if (target instanceof Expr.Get get) {
+            return new Expr.Set(get.object, get.name, value);
         }
 
-        return expr;
+        Lox.error(equalsLine, "Invalid assignment target.");
+        return target;
     }
 
     /**
      * Referência:
-     * Crafting Interpreters — Cap. 9
+     * Crafting Interpreters — Cap. 6, Cap. 12
      * Gramática:
-     *   logic_and → equality ( "and" equality )*
+     *   unary   → ( "!" | "-" ) unary | call
+     *   primary → NUMBER | STRING | "true" | "false" | "nil"
+     *            | IDENTIFIER
+     *            | "(" expression ")"
+     *            | "this"
      */
-    private Expr and() {
-        Expr expr = equality();
-
-        while (match(AND)) {
-            Token operator = previous();
-            Expr right = equality();
-            expr = new Expr.Logical(expr, operator, right);
+    private Expr prefix() {
+        TokenType type = peekType();
+        switch (type) {
+            case FALSE:
+                advance();
+                return new Expr.Literal(false);
+            case TRUE:
+                advance();
+                return new Expr.Literal(true);
+            case NIL:
+                advance();
+                return new Expr.Literal(null);
+            case NUMBER:
+            case STRING:
+                advance();
+                return new Expr.Literal(tokens.literal(current - 1));
+            case THIS:
+                advance();
+                return new Expr.This(previous());
+            case IDENTIFIER:
+                advance();
+                return new Expr.Variable(previous());
+            case LEFT_PAREN: {
+                advance();
+                Expr expr = expression();
+                expect(RIGHT_PAREN, "Expect ')' after expression.");
+                return new Expr.Grouping(expr);
+            }
+            case BANG:
+            case MINUS: {
+                advance();
+                Token operator = previous();
+                Expr right = parsePrecedence(PREC_UNARY);
+                return new Expr.Unary(operator, right);
+            }
+            default:
+                throw error(current, "Expect expression.");
         }
-
-        return expr;
     }
 
     /**
      * Referência:
-     * Crafting Interpreters — Cap. 6
+     * Crafting Interpreters — Cap. 10
      * Gramática:
-     *   equality → comparison ( ( "!=" | "==" ) comparison )*
+     *   arguments → expression ( "," expression )*
      */
-    private Expr equality() {
-        Expr expr = comparison();
+    private Expr finishCall(Expr callee) {
+        List<Expr> arguments = new ArrayList<>();
 
-        while (match(BANG_EQUAL, EQUAL_EQUAL)) {
-            Token operator = previous();
-            Expr right = comparison();
-            expr = new Expr.Binary(expr, operator, right);
+        if (!check(RIGHT_PAREN)) {
+            do {
+                if (arguments.size() >= MAX_PARAMETERS) {
+                    error(current, "Can't have more than " + MAX_PARAMETERS + " arguments.");
+                }
+                arguments.add(expression());
+            } while (match(COMMA));
         }
 
-        return expr;
+        Token paren = consume(RIGHT_PAREN, "Expect ')' after arguments.");
+        return new Expr.Call(callee, paren, arguments);
     }
 
+
+    // =========================================================================
+    //  PRÉ-ANÁLISE DOS CORPOS ADIADOS (MODO PREGUIÇOSO)
+    // =========================================================================
+
+    // Alvo de uma atribuição na pré-análise: o índice do IDENTIFIER de uma
+    // variável ainda não lida (>= 0), uma propriedade ou outra expressão.
+    private static final int SKIM_GET = -1;
+    private static final int SKIM_OTHER = -2;
+
     /**
-     * Referência:
-     * Crafting Interpreters — Cap. 6
-     * Gramática:
-     *   comparison → term ( ( ">" | ">=" | "<" | "<=" ) term )*
+     * Cada método skim* segue o método de mesmo nome do parse normal: consome
+     * os mesmos tokens e reporta os mesmos erros de sintaxe, mas não cria nós.
+     * Ao mesmo tempo acompanha os escopos como o Resolver, para guardar os
+     * erros de resolução do corpo (nome repetido num escopo, leitura de uma
+     * variável no próprio inicializador, 'this' fora de classe e retorno de
+     * valor num 'init') na ordem em que ele os reportaria.
+     *
+     *   block → "{" declaration* "}"
      */
-    private Expr comparison() {
-        Expr expr = term();
+    private void skimBlock() {
+        int enclosing = skimScope;
+        skimScope = skimLocals.size();
+        skimBlockBody();
+        endSkimScope(enclosing);
+    }
 
-        while (match(GREATER, GREATER_EQUAL, LESS, LESS_EQUAL)) {
-            Token operator = previous();
-            Expr right = term();
-            expr = new Expr.Binary(expr, operator, right);
+    /** Como block(), no escopo atual (o corpo de função divide o escopo dos parâmetros). */
+    private void skimBlockBody() {
+        while (!checkAny(BLOCK_END)) {
+            skimDeclaration();
         }
+        expect(RIGHT_BRACE, "Expect '}' after block.");
+    }
 
-        return expr;
+    private void skimDeclaration() {
+        try {
+            if (match(CLASS)) {
+                skimClassDeclaration();
+            } else if (match(FUN)) {
+                skimFunction("function");
+            } else if (match(VAR)) {
+                skimVarDeclaration();
+            } else {
+                skimStatement();
+            }
+        } catch (ParseError error) {
+            synchronize();
+        }
     }
 
-    /**
-     * Referência:
-     * Crafting Interpreters — Cap. 6
-     * Gramática:
-     *   term → factor ( ( "-" | "+" ) factor )*
-     */
-    private Expr term() {
-        Expr expr = factor();
+    private void skimClassDeclaration() {
+        int name = current;
+        expect(IDENTIFIER, "Expect class name.");
+        declareLocal(name);
+        expect(LEFT_BRACE, "Expect '{' before class body.");
 
-        while (match(MINUS, PLUS)) {
-            Token operator = previous();
-            Expr right = factor();
-            expr = new Expr.Binary(expr, operator, right);
+        boolean enclosing = skimClass;
+        skimClass = true;
+        try {
+            while (!checkAny(BLOCK_END)) {
+                skimFunction("method");
+            }
+        } finally {
+            skimClass = enclosing;
         }
 
-        return expr;
+        expect(RIGHT_BRACE, "Expect '}' after class body.");
     }
 
-    /**
-     * Referência:
-     * Crafting Interpreters — Cap. 6
-     * Gramática:
-     *   factor → unary ( ( "/" | "*" ) unary )*
-     */
-    private Expr factor() {
-        Expr expr = unary();
+    // As mensagens com 'kind' só são montadas no erro: a pré-análise não aloca
+    // nada num corpo sem erros.
+    private void skimFunction(String kind) {
+        int name = current;
+        if (!check(IDENTIFIER)) throw error(current, "Expect " + kind + " name.");
+        advance();
+        boolean method = kind.equals("method");
+        if (!method) declareLocal(name);
+        if (!check(LEFT_PAREN)) throw error(current, "Expect '(' after " + kind + " name.");
+        advance();
 
-        while (match(SLASH, STAR)) {
-            Token operator = previous();
-            Expr right = unary();
-            expr = new Expr.Binary(expr, operator, right);
+        boolean enclosingInitializer = skimInitializer;
+        int enclosingScope = skimScope;
+        skimInitializer = method && tokens.name(name).equals("init");
+        skimScope = skimLocals.size();
+        try {
+            if (!check(RIGHT_PAREN)) {
+                int count = 0;
+                do {
+                    if (count++ >= MAX_PARAMETERS) {
+                        error(current, "Can't have more than " + MAX_PARAMETERS + " parameters.");
+                    }
+                    int parameter = current;
+                    expect(IDENTIFIER, "Expect parameter name.");
+                    declareLocal(parameter);
+                } while (match(COMMA));
+            }
+
+            expect(RIGHT_PAREN, "Expect ')' after parameters.");
+            if (!check(LEFT_BRACE)) throw error(current, "Expect '{' before " + kind + " body.");
+            advance();
+            skimBlockBody();
+        } finally {
+            endSkimScope(enclosingScope);
+            skimInitializer = enclosingInitializer;
         }
+    }
 
-        return expr;
+    private void skimVarDeclaration() {
+        int name = current;
+        expect(IDENTIFIER, "Expect variable name.");
+        declareLocal(name);
+
+        if (match(EQUAL)) {
+            skimInitializing = tokens.name(name);
+            try {
+                skimExpression();
+            } finally {
+                skimInitializing = null;
+            }
+        }
+
+        expect(SEMICOLON, "Expect ';' after variable declaration.");
+    }
+
+    private void skimStatement() {
+        if (match(FOR)) {
+            skimForStatement();
+        } else if (match(IF)) {
+            expect(LEFT_PAREN, "Expect '(' after 'if'.");
+            skimExpression();
+            expect(RIGHT_PAREN, "Expect ')' after if condition.");
+            skimStatement();
+            if (match(ELSE)) skimStatement();
+        } else if (match(PRINT)) {
+            skimExpression();
+            expect(SEMICOLON, "Expect ';' after value.");
+        } else if (match(RETURN)) {
+            int keyword = current - 1;
+            if (!check(SEMICOLON)) {
+                if (skimInitializer) {
+                    skim.error(tokens.token(keyword), "Can't return a value from an initializer.");
+                }
+                skimExpression();
+            }
+            expect(SEMICOLON, "Expect ';' after return value.");
+        } else if (match(WHILE)) {
+            expect(LEFT_PAREN, "Expect '(' after 'while'.");
+            skimExpression();
+            expect(RIGHT_PAREN, "Expect ')' after condition.");
+            skimStatement();
+        } else if (match(LEFT_BRACE)) {
+            skimBlock();
+        } else {
+            skimExpression();
+            expect(SEMICOLON, "Expect ';' after expression.");
+        }
     }
 
     /**
-     * Referência:
-     * Crafting Interpreters — Cap. 6
-     * Gramática:
-     *   unary → ( "!" | "-" ) unary | call
+     * O 'for' vira um bloco (se declara a variável) em volta de um 'while',
+     * com o incremento depois do corpo (ver forStatement).
      */
-    private Expr unary() {
-        if (match(BANG, MINUS)) {
-            Token operator = previous();
-            Expr right = unary();
-            return new Expr.Unary(operator, right);
+    private void skimForStatement() {
+        expect(LEFT_PAREN, "Expect '(' after 'for'.");
+
+        int enclosing = skimScope;
+        skimScope = skimLocals.size();
+        try {
+            if (match(SEMICOLON)) {
+                // Sem inicializador.
+            } else if (match(VAR)) {
+                skimVarDeclaration();
+            } else {
+                skimExpression();
+                expect(SEMICOLON, "Expect ';' after expression.");
+            }
+
+            if (!check(SEMICOLON)) {
+                skimExpression();
+            }
+            expect(SEMICOLON, "Expect ';' after loop condition.");
+
+            int increment = skim.errorCount();
+            if (!check(RIGHT_PAREN)) {
+                skimExpression();
+            }
+            int body = skim.errorCount();
+
+            expect(RIGHT_PAREN, "Expect ')' after for clauses.");
+            skimStatement();
+            skim.moveErrors(increment, body);
+        } finally {
+            endSkimScope(enclosing);
         }
-        return call();
+    }
+
+    private void skimExpression() {
+        skimPrecedence(PREC_ASSIGNMENT);
     }
 
     /**
-     * Referência:
-     * Crafting Interpreters — Cap. 10 (Functions), Cap. 12 (Classes)
-     * Gramática:
-     *   call → primary ( "(" arguments? ")" | "." IDENTIFIER )*
+     * Como parsePrecedence. Uma variável só conta como lida (ver skimRead)
+     * quando se sabe que não é o alvo de uma atribuição.
      */
-    private Expr call() {
-        Expr expr = primary();
+    private void skimPrecedence(int precedence) {
+        int errors = skim.errorCount();
+        int target = skimPrefix();
 
         while (true) {
-            if (match(LEFT_PAREN)) {
-                expr = finishCall(expr);
-            } else if (match(DOT)) {
-                Token name = consume(IDENTIFIER, "Expect property name after '.'.");
-                expr = new Expr.Get(expr, name);
-            } else {
-                break;
+            TokenType type = peekType();
+            int infix = INFIX[type.ordinal()];
+            if (infix < precedence) break;
+            advance();
+
+            if (type == EQUAL) {
+                skimAssignment(target, errors);
+                return;
+            }
+
+            skimRead(target);
+            switch (type) {
+                case LEFT_PAREN:
+                    skimCall();
+                    target = SKIM_OTHER;
+                    break;
+                case DOT:
+                    expect(IDENTIFIER, "Expect property name after '.'.");
+                    target = SKIM_GET;
+                    break;
+                default:
+                    skimPrecedence(infix + 1);
+                    target = SKIM_OTHER;
+                    break;
             }
         }
 
-        return expr;
+        skimRead(target);
     }
 
     /**
-     * Referência:
-     * Crafting Interpreters — Cap. 10
-     * Gramática:
-     *   arguments → expression ( "," expression )*
+     * Como assignment. 'errors' marca os erros do alvo: numa propriedade, o
+     * Resolver visita o valor antes do objeto.
      */
-    private Expr finishCall(Expr callee) {
-        List<Expr> arguments = new ArrayList<>();
+    private void skimAssignment(int target, int errors) {
+        int equalsLine = tokens.line(current - 1);
+        int value = skim.errorCount();
+        skimPrecedence(PREC_ASSIGNMENT);
+
+        if (target >= 0) return;
+        if (target == SKIM_GET) {
+            skim.moveErrors(errors, value);
+            return;
+        }
+
+        Lox.error(equalsLine, "Invalid assignment target.");
+    }
+
+    private int skimPrefix() {
+        TokenType type = peekType();
+        switch (type) {
+            case FALSE:
+            case TRUE:
+            case NIL:
+            case NUMBER:
+            case STRING:
+                advance();
+                return SKIM_OTHER;
+            case THIS:
+                advance();
+                if (!skimClass) {
+                    skim.error(previous(), "Can't use 'this' outside of a class.");
+                }
+                return SKIM_OTHER;
+            case IDENTIFIER:
+                advance();
+                return current - 1;
+            case LEFT_PAREN:
+                advance();
+                skimExpression();
+                expect(RIGHT_PAREN, "Expect ')' after expression.");
+                return SKIM_OTHER;
+            case BANG:
+            case MINUS:
+                advance();
+                skimPrecedence(PREC_UNARY);
+                return SKIM_OTHER;
+            default:
+                throw error(current, "Expect expression.");
+        }
+    }
 
+    private void skimCall() {
         if (!check(RIGHT_PAREN)) {
+            int count = 0;
             do {
-                if (arguments.size() >= MAX_PARAMETERS) {
-                    error(peek(), "Can't have more than " + MAX_PARAMETERS + " arguments.");
+                if (count++ >= MAX_PARAMETERS) {
+                    error(current, "Can't have more than " + MAX_PARAMETERS + " arguments.");
                 }
-                arguments.add(expression());
+                skimExpression();
             } while (match(COMMA));
         }
 
-        Token paren = consume(RIGHT_PAREN, "Expect ')' after arguments.");
-        return new Expr.Call(callee, paren, arguments);
+        expect(RIGHT_PAREN, "Expect ')' after arguments.");
     }
 
-    /**
-     * Referência:
-     * Crafting Interpreters — Cap. 6
-     * Gramática:
-     *   primary → NUMBER | STRING | "true" | "false" | "nil"
-     *            | IDENTIFIER
-     *            | "(" expression ")"
-     *            | "this"
-     */
-    private Expr primary() {
-        if (match(FALSE)) return new Expr.Literal(false);
-        if (match(TRUE))  return new Expr.Literal(true);
-        if (match(NIL))   return new Expr.Literal(null);
-
-        if (match(NUMBER, STRING)) {
-            return new Expr.Literal(previous().literal);
+    /** Leitura de variável: é erro ler a que está sendo declarada no escopo atual. */
+    private void skimRead(int target) {
+        if (target >= 0 && skimInitializing != null
+                && tokens.name(target).equals(skimInitializing)) {
+            skim.error(tokens.token(target), "Can't read local variable in its own initializer.");
         }
+    }
 
-        if (match(THIS)) return new Expr.This(previous());
+    /** Fecha o escopo atual e volta para o que começa em 'enclosing'. */
+    private void endSkimScope(int enclosing) {
+        for (int i = skimLocals.size() - 1; i >= skimScope; i--) {
+            skimLocals.remove(i);
+        }
+        skimScope = enclosing;
+    }
 
-        if (match(IDENTIFIER)) {
-            return new Expr.Variable(previous());
+    /** Declara o nome no escopo atual, como Resolver.declare. */
+    private void declareLocal(int index) {
+        if (!declareLocal(tokens.name(index))) {
+            skim.error(tokens.token(index), "Already a variable with this name in this scope.");
         }
+    }
 
-        if (match(LEFT_PAREN)) {
-            Expr expr = expression();
-            consume(RIGHT_PAREN, "Expect ')' after expression.");
-            return new Expr.Grouping(expr);
+    private void declareLocal(Token name) {
+        if (!declareLocal(name.lexeme())) {
+            skim.error(name, "Already a variable with this name in this scope.");
         }
+    }
 
-        throw error(peek(), "Expect expression.");
+    private boolean declareLocal(String name) {
+        for (int i = skimScope; i < skimLocals.size(); i++) {
+            if (skimLocals.get(i).equals(name)) return false;
+        }
+        skimLocals.add(name);
+        return true;
     }
 
 
@@ -581,47 +982,69 @@ public class Parser {
     //  AUXILIARES — MATCH, CONSUME, ERROS E SINCRONIZAÇÃO
     // =========================================================================
 
+    // Conjuntos de tipos de token como máscaras de bits (TokenType tem menos
+    // de 64 tipos): o teste é um AND, sem percorrer uma lista de tipos.
+    private static final long BLOCK_END = set(RIGHT_BRACE, EOF);
+    private static final long STATEMENT_START =
+            set(CLASS, FUN, VAR, FOR, IF, WHILE, PRINT, RETURN);
+
+    private static long set(TokenType... types) {
+        long set = 0;
+        for (TokenType type : types) set |= 1L << type.ordinal();
+        return set;
+    }
+
     /**
-     * Consome o token se ele corresponder a algum dos tipos dados.
+     * Consome o token se ele for do tipo dado.
      */
-    private boolean match(TokenType... types) {
-        for (TokenType type : types) {
-            if (check(type)) {
-                advance();
-                return true;
-            }
-        }
-        return false;
+    private boolean match(TokenType type) {
+        if (!check(type)) return false;
+        advance();
+        return true;
+    }
+
+    /**
+     * Se o token atual pertence ao conjunto (ver set).
+     */
+    private boolean checkAny(long set) {
+        return (set & (1L << peekType().ordinal())) != 0;
     }
 
     /**
      * Consome o token do tipo esperado ou lança erro.
      */
     private Token consume(TokenType type, String message) {
-        if (check(type)) return advance();
-        throw error(peek(), message);
+        expect(type, message);
+        return previous();
+    }
+
+    /**
+     * Como consume, para pontuação: não cria o Token consumido.
+     */
+    private void expect(TokenType type, String message) {
+        if (!check(type)) throw error(current, message);
+        advance();
     }
 
     private boolean check(TokenType type) {
         if (isAtEnd()) return false;
-        return peek().type == type;
+        return peekType() == type;
     }
 
-    private Token advance() {
+    private void advance() {
         if (!isAtEnd()) current++;
-        return previous();
     }
 
     private boolean isAtEnd() {
-        return peek().type == EOF;
+        return peekType() == EOF;
     }
 
-    private Token peek() {
-        return tokens.get(current);
+    private TokenType peekType() {
+        return tokens.type(current);
     }
 
     private Token previous() {
-        return tokens.get(current - 1);
+        return tokens.token(current - 1);
     }
 
     /**
@@ -629,8 +1052,8 @@ public class Parser {
      * Crafting Interpreters — Cap. 6.4 (Error Recovery)
      * Técnica: Panic Mode
      */
-    private ParseError error(Token token, String message) {
-        Lox.error(token.line, message);
+    private ParseError error(int index, String message) {
+        Lox.error(tokens.line(index), message);
         return new ParseError();
     }
 
@@ -645,19 +1068,8 @@ public class Parser {
         advance();
 
         while (!isAtEnd()) {
-            if (previous().type == SEMICOLON) return;
-
-            switch (peek().type) {
-                case CLASS:
-                case FUN:
-                case VAR:
-                case FOR:
-                case IF:
-                case WHILE:
-                case PRINT:
-                case RETURN:
-                    return;
-            }
+            if (tokens.type(current - 1) == SEMICOLON) return;
+            if (checkAny(STATEMENT_START)) return;
             advance();
         }
     }
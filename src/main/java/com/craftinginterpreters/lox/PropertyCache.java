@@ -0,0 +1,204 @@
+package com.craftinginterpreters.lox;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * PropertyCache — Cache inline de um ponto de acesso a propriedade (obj.nome).
+ *
+ * Cada Expr.Get/Expr.Set compilado (nó ou instrução da VM) tem o seu. O cache
+ * guarda até MAX_ENTRIES Shapes já vistos naquele ponto com o resultado da
+ * busca: o slot do campo, o método da classe (get) ou a transição para o
+ * Shape com o campo novo (set). Como o Shape identifica a classe e o conjunto
+ * de campos, um acerto dispensa a busca pelo nome e o findMethod.
+ *
+ * Com mais Shapes do que isso o ponto vira megamórfico e passa a fazer a
+ * busca completa a cada execução. Instâncias em modo dicionário
+ * (Shape.DICTIONARY) nunca entram no cache. Acertos e falhas são contados por
+ * ponto e podem ser listados com --ic-stats.
+ *
+ * Referência: Crafting Interpreters — Cap. 12 (Classes); a técnica é a de
+ * "inline caching" descrita nas notas de design do Cap. 30 (Optimization).
+ */
+final class PropertyCache {
+
+    private static final int MAX_ENTRIES = 4;
+
+    /** Pontos registrados para o relatório de --ic-stats (nulo se desativado). */
+    private static List<PropertyCache> sites = null;
+
+    final Token name;
+    private final boolean isSet;
+
+    private final Shape[] shapes = new Shape[MAX_ENTRIES];
+    private final int[] slots = new int[MAX_ENTRIES];
+    private final LoxFunction[] methods = new LoxFunction[MAX_ENTRIES];
+    private final Shape[] transitions = new Shape[MAX_ENTRIES];
+    private int size = 0;
+    private boolean megamorphic = false;
+
+    long hits = 0;
+    long misses = 0;
+
+    PropertyCache(Token name, boolean isSet) {
+        this.name = name;
+        this.isSet = isSet;
+        if (sites != null) sites.add(this);
+    }
+
+    /**
+     * Leitura de propriedade: campo da instância ou método vinculado.
+     */
+    Object get(LoxInstance instance) {
+        Shape shape = instance.shape;
+        for (int i = 0; i < size; i++) {
+            if (shapes[i] == shape) {
+                hits++;
+                int slot = slots[i];
+                if (slot >= 0) return instance.values[slot];
+                return methods[i].bind(instance);
+            }
+        }
+
+        misses++;
+        if (shape == Shape.DICTIONARY) return instance.get(name);
+        int slot = shape.slotOf(name.lexeme());
+        if (slot >= 0) {
+            add(shape, slot, null, null);
+            return instance.values[slot];
+        }
+
+        LoxFunction method = instance.klass.findMethod(name.lexeme());
+        if (method == null) {
+            // Propriedade inexistente: LoxInstance.get reporta o erro.
+            return instance.get(name);
+        }
+        add(shape, -1, method, null);
+        return method.bind(instance);
+    }
+
+    /**
+     * Busca para uma chamada obj.nome(...): devolve o método da classe, sem
+     * vinculá-lo, ou null se a propriedade é um campo (lido então com
+     * LoxInstance.get). Propriedade inexistente é reportada como em get.
+     */
+    LoxFunction method(LoxInstance instance) {
+        Shape shape = instance.shape;
+        for (int i = 0; i < size; i++) {
+            if (shapes[i] == shape) {
+                hits++;
+                return methods[i];
+            }
+        }
+
+        misses++;
+        if (shape == Shape.DICTIONARY) {
+            if (instance.hasField(name.lexeme())) return null;
+            LoxFunction method = instance.klass.findMethod(name.lexeme());
+            if (method == null) instance.get(name);
+            return method;
+        }
+        int slot = shape.slotOf(name.lexeme());
+        if (slot >= 0) {
+            add(shape, slot, null, null);
+            return null;
+        }
+
+        LoxFunction method = instance.klass.findMethod(name.lexeme());
+        if (method == null) {
+            // Propriedade inexistente: LoxInstance.get reporta o erro.
+            instance.get(name);
+        }
+        add(shape, -1, method, null);
+        return method;
+    }
+
+    /**
+     * Escrita de campo: sobrescreve o slot ou acrescenta o campo à instância.
+     */
+    void set(LoxInstance instance, Object value) {
+        Shape shape = instance.shape;
+        for (int i = 0; i < size; i++) {
+            if (shapes[i] == shape) {
+                hits++;
+                Shape next = transitions[i];
+                if (next == null) {
+                    instance.values[slots[i]] = value;
+                } else {
+                    instance.addField(next, value);
+                }
+                return;
+            }
+        }
+
+        misses++;
+        int slot = shape.slotOf(name.lexeme());
+        if (slot >= 0) {
+            add(shape, slot, null, null);
+            instance.values[slot] = value;
+            return;
+        }
+
+        Shape next = shape.withField(name.lexeme());
+        if (next == Shape.DICTIONARY) {
+            // Modo dicionário (ou a passagem para ele): sem cache.
+            instance.set(name, value);
+            return;
+        }
+        add(shape, next.size() - 1, null, next);
+        instance.addField(next, value);
+    }
+
+    private void add(Shape shape, int slot, LoxFunction method, Shape next) {
+        if (size == MAX_ENTRIES) {
+            megamorphic = true;
+            return;
+        }
+        shapes[size] = shape;
+        slots[size] = slot;
+        methods[size] = method;
+        transitions[size] = next;
+        size++;
+    }
+
+    private String state() {
+        if (megamorphic) return "megamorphic";
+        if (size == 0) return "uninitialized";
+        if (size == 1) return "monomorphic";
+        return "polymorphic(" + size + ")";
+    }
+
+    // -------------------------------------------------------------------------
+    // Estatísticas (--ic-stats)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Passa a registrar os pontos criados a partir de agora.
+     */
+    static void enableStats() {
+        if (sites == null) sites = new ArrayList<>();
+    }
+
+    /**
+     * Lista a taxa de acerto de cada ponto executado, ordenado por linha.
+     */
+    static void report(PrintStream out) {
+        if (sites == null) return;
+
+        List<PropertyCache> executed = new ArrayList<>();
+        for (PropertyCache site : sites) {
+            if (site.hits + site.misses > 0) executed.add(site);
+        }
+        executed.sort(Comparator.comparingInt(site -> site.name.line));
+
+        out.println("== inline caches: " + executed.size() + " sites");
+        for (PropertyCache site : executed) {
+            long total = site.hits + site.misses;
+            out.printf("[line %d] %s %-16s %12d / %-12d %6.2f%%  %s%n",
+                    site.name.line, site.isSet ? "set" : "get", site.name.lexeme(),
+                    site.hits, total, 100.0 * site.hits / total, site.state());
+        }
+    }
+}
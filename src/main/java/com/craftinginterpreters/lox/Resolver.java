@@ -19,9 +19,11 @@ import java.util.Stack;
  *
  * Funcionamento geral:
  *  1. Percorre a AST antes da interpretação.
- *  2. Mantém uma pilha de escopos (stack) composta de mapas { nome → inicializado? }.
- *  3. Define a “distância” até a declaração de cada variável.
- *  4. Informa essas distâncias ao Interpreter via interpreter.resolve(expr, depth).
+ *  2. Mantém uma pilha de escopos (stack) composta de mapas { nome → local }.
+ *  3. Numera as variáveis de cada escopo (slots) na ordem de declaração.
+ *  4. Define a “distância” até a declaração de cada variável.
+ *  5. Informa (distância, slot) ao Interpreter via interpreter.resolve(expr, depth, slot)
+ *     e grava o número de slots de cada bloco/função para dimensionar os frames.
  *
  * Sem o Resolver, lookup de variáveis dependeria apenas do ambiente dinâmico —
  * impedindo closures corretos e levando a ambiguidades de escopo.
@@ -30,8 +32,8 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     private final Interpreter interpreter;
 
-    /** Pilha de escopos léxicos: cada nível é um mapa { nome: inicializado? }. */
-    private final Stack<Map<String, Boolean>> scopes = new Stack<>();
+    /** Pilha de escopos léxicos: cada nível é um mapa { nome: local }. */
+    private final Stack<Map<String, Local>> scopes = new Stack<>();
 
     /** Rastreia o contexto funcional atual (usado para validar retornos). */
     private FunctionType currentFunction = FunctionType.NONE;
@@ -59,6 +61,19 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         CLASS
     }
 
+    /**
+     * Variável local declarada em um escopo.
+     * O slot é a posição da variável no frame (Environment) do escopo.
+     */
+    private static class Local {
+        final int slot;
+        boolean defined = false;
+
+        Local(int slot) {
+            this.slot = slot;
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Ponto de entrada
     // -------------------------------------------------------------------------
@@ -72,15 +87,36 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         }
     }
 
+    /**
+     * Resolve o corpo adiado de uma função de nível superior, ou de um método
+     * de uma classe de nível superior (ver LazyBody). Fora dela só há globais,
+     * então o resultado é o mesmo do passe normal.
+     */
+    void resolveBody(Stmt.Function function, boolean method) {
+        if (method) {
+            currentClass = ClassType.CLASS;
+            resolveFunction(function, methodType(function));
+        } else {
+            resolveFunction(function, FunctionType.FUNCTION);
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Visitantes de STATEMENTS
     // -------------------------------------------------------------------------
 
     @Override
     public Void visitBlockStmt(Stmt.Block stmt) {
+        // Blocos sem declarações não abrem escopo: localCount fica 0 e o
+        // Interpreter/VM executam no ambiente atual, sem alocar um Environment.
+        if (!declaresVariables(stmt.statements)) {
+            resolve(stmt.statements);
+            return null;
+        }
+
         beginScope();
         resolve(stmt.statements);
-        endScope();
+        stmt.localCount = endScope();
         return null;
     }
 
@@ -89,8 +125,8 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
      *
      * Cap. 12:
      *  - Declara o nome no escopo externo.
-     *  - Abre um novo escopo contendo "this".
-     *  - Resolve cada método individualmente.
+     *  - Resolve cada método individualmente; "this" é o primeiro slot do
+     *    escopo de cada método (ver resolveFunction).
      */
     @Override
     public Void visitClassStmt(Stmt.Class stmt) {
@@ -100,19 +136,10 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         declare(stmt.name);
         define(stmt.name);
 
-        // Escopo onde 'this' está disponível
-        beginScope();
-        scopes.peek().put("this", true);
-
         for (Stmt.Function method : stmt.methods) {
-            FunctionType type = method.name.lexeme.equals("init")
-                    ? FunctionType.INITIALIZER
-                    : FunctionType.METHOD;
-
-            resolveFunction(method, type);
+            resolveFunction(method, methodType(method));
         }
 
-        endScope();
         currentClass = enclosingClass;
         return null;
     }
@@ -188,9 +215,11 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
      */
     @Override
     public Void visitVariableExpr(Expr.Variable expr) {
-        if (!scopes.isEmpty()
-                && Boolean.FALSE.equals(scopes.peek().get(expr.name.lexeme))) {
-            Lox.error(expr.name, "Can't read local variable in its own initializer.");
+        if (!scopes.isEmpty()) {
+            Local local = scopes.peek().get(expr.name.lexeme());
+            if (local != null && !local.defined) {
+                Lox.error(expr.name, "Can't read local variable in its own initializer.");
+            }
         }
 
         resolveLocal(expr, expr.name);
@@ -282,30 +311,69 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
      *
      * Cap. 11:
      *  - Abre novo escopo para parâmetros.
-     *  - Parâmetros são declarados e definidos imediatamente.
-     *  - Corpo é resolvido em seguida.
+     *  - Em métodos, "this" ocupa o slot 0 do próprio frame da chamada, de modo
+     *    que invocar um método não exige um ambiente extra (ver LoxFunction.invoke).
+     *  - Parâmetros são declarados e definidos imediatamente (slots seguintes).
+     *  - Corpo é resolvido em seguida, no mesmo escopo.
      */
     private void resolveFunction(Stmt.Function function, FunctionType type) {
+        if (function.lazy != null) {
+            // Corpo ainda não analisado (ver LazyBody): o frame tem por ora só
+            // 'this' e os parâmetros, e cresce quando o corpo for compilado.
+            // Os erros de resolução do corpo vêm da pré-análise do Parser.
+            function.lazy.reportErrors();
+            function.localCount = function.params.size()
+                    + (type == FunctionType.FUNCTION ? 0 : 1);
+            return;
+        }
+
         FunctionType enclosing = currentFunction;
         currentFunction = type;
 
         beginScope();
+        if (type == FunctionType.METHOD || type == FunctionType.INITIALIZER) {
+            declare("this");
+            define("this");
+        }
         for (Token param : function.params) {
             declare(param);
             define(param);
         }
         resolve(function.body);
-        endScope();
+        function.localCount = endScope();
 
         currentFunction = enclosing;
     }
 
+    private static FunctionType methodType(Stmt.Function method) {
+        return method.name.lexeme().equals("init")
+                ? FunctionType.INITIALIZER
+                : FunctionType.METHOD;
+    }
+
+    /**
+     * Indica se a lista declara algum nome diretamente no seu escopo.
+     */
+    private boolean declaresVariables(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            if (statement instanceof Stmt.Var
+                    || statement instanceof Stmt.Function
+                    || statement instanceof Stmt.Class) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void beginScope() {
         scopes.push(new HashMap<>());
     }
 
-    private void endScope() {
-        scopes.pop();
+    /**
+     * Fecha o escopo atual e retorna quantos slots ele ocupou.
+     */
+    private int endScope() {
+        return scopes.pop().size();
     }
 
     /**
@@ -315,12 +383,19 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     private void declare(Token name) {
         if (scopes.isEmpty()) return;
 
-        Map<String, Boolean> scope = scopes.peek();
-        if (scope.containsKey(name.lexeme)) {
+        if (scopes.peek().containsKey(name.lexeme())) {
             Lox.error(name, "Already a variable with this name in this scope.");
         }
 
-        scope.put(name.lexeme, false); // declarado, não inicializado
+        declare(name.lexeme());
+    }
+
+    /**
+     * Reserva o próximo slot do escopo atual para o nome (declarado, não inicializado).
+     */
+    private void declare(String name) {
+        Map<String, Local> scope = scopes.peek();
+        scope.put(name, new Local(scope.size()));
     }
 
     /**
@@ -328,20 +403,26 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
      */
     private void define(Token name) {
         if (scopes.isEmpty()) return;
-        scopes.peek().put(name.lexeme, true);
+        define(name.lexeme());
+    }
+
+    private void define(String name) {
+        scopes.peek().get(name).defined = true;
     }
 
     /**
-     * Determina a que distância (quantos escopos acima) está uma variável.
-     * Essa informação é enviada ao Interpreter.
+     * Determina a que distância (quantos escopos acima) está uma variável
+     * e em qual slot daquele escopo. Essa informação é enviada ao Interpreter.
      */
     private void resolveLocal(Expr expr, Token name) {
         for (int i = scopes.size() - 1; i >= 0; i--) {
-            if (scopes.get(i).containsKey(name.lexeme)) {
-                interpreter.resolve(expr, scopes.size() - 1 - i);
+            Local local = scopes.get(i).get(name.lexeme());
+            if (local != null) {
+                interpreter.resolve(expr, scopes.size() - 1 - i, local.slot);
                 return;
             }
         }
-        // Não encontrado: variável global. Nada é registrado.
+        // Não encontrado: variável global, indexada na tabela de símbolos global.
+        interpreter.resolveGlobal(expr, name);
     }
 }
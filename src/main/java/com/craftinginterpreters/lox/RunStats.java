@@ -0,0 +1,317 @@
+package com.craftinginterpreters.lox;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RunStats — Estatísticas por fase de uma execução (--stats).
+ *
+ * Para cada fase do pipeline (scan, parse, resolve, execute) registra o tempo
+ * de parede e os bytes alocados pela thread (ThreadMXBean), além das contagens
+ * da fase: tokens, nós da AST e ambientes (Environment) criados na execução.
+ * O relatório sai em stderr, como tabela ou JSON (--stats=json).
+ */
+final class RunStats {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    /** Uma fase medida; contagens -1 não se aplicam à fase. */
+    private static final class Phase {
+        final String name;
+        final long nanos;
+        final long bytes;
+        long tokens = -1;
+        long nodes = -1;
+        long environments = -1;
+
+        Phase(String name, long nanos, long bytes) {
+            this.name = name;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+    }
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    private String current;
+    private long startNanos;
+    private long startBytes;
+    private long startEnvironments;
+
+    RunStats() {
+        // Liga a contagem de ambientes, desligada por padrão (ver Environment).
+        Environment.counting = true;
+    }
+
+    /**
+     * Inicia a medição de uma fase.
+     */
+    void start(String phase) {
+        current = phase;
+        startEnvironments = Environment.created;
+        startBytes = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Encerra a fase iniciada por start; as contagens são preenchidas depois.
+     */
+    private Phase stop() {
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = allocatedBytes();
+        Phase phase = new Phase(current, nanos, bytes < 0 ? -1 : bytes - startBytes);
+        phase.environments = Environment.created - startEnvironments;
+        phases.add(phase);
+        return phase;
+    }
+
+    void stopScan(TokenBuffer tokens) {
+        Phase phase = stop();
+        phase.environments = -1;
+        phase.tokens = tokens.size();
+    }
+
+    void stopParse(List<Stmt> statements) {
+        Phase phase = stop();
+        phase.environments = -1;
+        phase.nodes = NodeCounter.count(statements);
+    }
+
+    void stopResolve() {
+        stop().environments = -1;
+    }
+
+    /**
+     * Encerra a execução. A VM guarda os locais na própria pilha e não cria
+     * Environments: com 'vm', a contagem fica -1 (não medida), e não 0.
+     */
+    void stopExecute(boolean vm) {
+        Phase phase = stop();
+        if (vm) phase.environments = -1;
+    }
+
+    // -------------------------------------------------------------------------
+    // Relatório
+    // -------------------------------------------------------------------------
+
+    void print(PrintStream out, boolean json) {
+        if (json) {
+            printJson(out);
+        } else {
+            printTable(out);
+        }
+    }
+
+    private void printTable(PrintStream out) {
+        out.printf(Locale.ROOT, "%-8s %12s %16s %10s %10s %14s%n",
+                "phase", "wall (ms)", "allocated (B)", "tokens", "nodes", "environments");
+        long nanos = 0;
+        long bytes = 0;
+        for (Phase phase : phases) {
+            out.printf(Locale.ROOT, "%-8s %12.3f %16s %10s %10s %14s%n",
+                    phase.name, phase.nanos / 1e6, count(phase.bytes),
+                    count(phase.tokens), count(phase.nodes), count(phase.environments));
+            nanos += phase.nanos;
+            bytes = (bytes < 0 || phase.bytes < 0) ? -1 : bytes + phase.bytes;
+        }
+        out.printf(Locale.ROOT, "%-8s %12.3f %16s%n", "total", nanos / 1e6, count(bytes));
+    }
+
+    private void printJson(PrintStream out) {
+        StringBuilder json = new StringBuilder("{\"phases\": [");
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            if (i > 0) json.append(", ");
+            json.append(String.format(Locale.ROOT,
+                    "{\"phase\": \"%s\", \"wall_ms\": %.3f, \"allocated_bytes\": %d",
+                    phase.name, phase.nanos / 1e6, phase.bytes));
+            if (phase.tokens >= 0) json.append(", \"tokens\": ").append(phase.tokens);
+            if (phase.nodes >= 0) json.append(", \"nodes\": ").append(phase.nodes);
+            if (phase.environments >= 0) json.append(", \"environments\": ").append(phase.environments);
+            json.append('}');
+        }
+        json.append("]}");
+        out.println(json);
+    }
+
+    private static String count(long value) {
+        return value < 0 ? "-" : Long.toString(value);
+    }
+
+    // -------------------------------------------------------------------------
+    // Alocação por thread
+    // -------------------------------------------------------------------------
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    /** Bytes alocados pela thread atual até agora, ou -1 se a JVM não informa. */
+    private static long allocatedBytes() {
+        if (THREADS == null) return -1;
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // -------------------------------------------------------------------------
+    // Contagem de nós da AST
+    // -------------------------------------------------------------------------
+
+    /** Conta os nós Stmt/Expr produzidos pelo Parser. */
+    private static final class NodeCounter implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+        private long nodes = 0;
+
+        static long count(List<Stmt> statements) {
+            NodeCounter counter = new NodeCounter();
+            counter.statements(statements);
+            return counter.nodes;
+        }
+
+        private void statements(List<Stmt> statements) {
+            for (Stmt statement : statements) statement(statement);
+        }
+
+        private void statement(Stmt stmt) {
+            if (stmt == null) return;
+            nodes++;
+            stmt.accept(this);
+        }
+
+        private void expression(Expr expr) {
+            if (expr == null) return;
+            nodes++;
+            expr.accept(this);
+        }
+
+        @Override
+        public Void visitBlockStmt(Stmt.Block stmt) {
+            statements(stmt.statements);
+            return null;
+        }
+
+        @Override
+        public Void visitClassStmt(Stmt.Class stmt) {
+            for (Stmt.Function method : stmt.methods) statement(method);
+            return null;
+        }
+
+        @Override
+        public Void visitExpressionStmt(Stmt.Expression stmt) {
+            expression(stmt.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitFunctionStmt(Stmt.Function stmt) {
+            statements(stmt.body);
+            return null;
+        }
+
+        @Override
+        public Void visitIfStmt(Stmt.If stmt) {
+            expression(stmt.condition);
+            statement(stmt.thenBranch);
+            statement(stmt.elseBranch);
+            return null;
+        }
+
+        @Override
+        public Void visitPrintStmt(Stmt.Print stmt) {
+            expression(stmt.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitReturnStmt(Stmt.Return stmt) {
+            expression(stmt.value);
+            return null;
+        }
+
+        @Override
+        public Void visitVarStmt(Stmt.Var stmt) {
+            expression(stmt.initializer);
+            return null;
+        }
+
+        @Override
+        public Void visitWhileStmt(Stmt.While stmt) {
+            expression(stmt.condition);
+            statement(stmt.body);
+            return null;
+        }
+
+        @Override
+        public Void visitAssignExpr(Expr.Assign expr) {
+            expression(expr.value);
+            return null;
+        }
+
+        @Override
+        public Void visitBinaryExpr(Expr.Binary expr) {
+            expression(expr.left);
+            expression(expr.right);
+            return null;
+        }
+
+        @Override
+        public Void visitCallExpr(Expr.Call expr) {
+            expression(expr.callee);
+            for (Expr argument : expr.arguments) expression(argument);
+            return null;
+        }
+
+        @Override
+        public Void visitGetExpr(Expr.Get expr) {
+            expression(expr.object);
+            return null;
+        }
+
+        @Override
+        public Void visitGroupingExpr(Expr.Grouping expr) {
+            expression(expr.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitLiteralExpr(Expr.Literal expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitLogicalExpr(Expr.Logical expr) {
+            expression(expr.left);
+            expression(expr.right);
+            return null;
+        }
+
+        @Override
+        public Void visitSetExpr(Expr.Set expr) {
+            expression(expr.object);
+            expression(expr.value);
+            return null;
+        }
+
+        @Override
+        public Void visitThisExpr(Expr.This expr) {
+            return null;
+        }
+
+        @Override
+        public Void visitUnaryExpr(Expr.Unary expr) {
+            expression(expr.right);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableExpr(Expr.Variable expr) {
+            return null;
+        }
+    }
+}
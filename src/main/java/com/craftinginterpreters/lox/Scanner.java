@@ -1,9 +1,9 @@
 package com.craftinginterpreters.lox;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import static com.craftinginterpreters.lox.TokenType.*;
 
@@ -19,11 +19,114 @@ import static com.craftinginterpreters.lox.TokenType.*;
  *  - Reconhecimento de literais, identificadores, operadores e palavras-chave.
  *  - Tratamento de comentários e whitespace.
  *  - Geração de tokens com informação de linha.
+ *
+ * O Scanner percorre os bytes UTF-8 do código-fonte (ver Source), não um
+ * String: a sintaxe de Lox é toda ASCII, e bytes não-ASCII só aparecem em
+ * strings e comentários, que são atravessados sem decodificação. Os tokens
+ * guardam a posição do lexema e só montam o texto quando ele é pedido.
+ *
+ * Cada byte é classificado por tabela (CLASSES e KINDS) em vez de um switch
+ * com testes de intervalo. O Source garante que o último byte legível é um
+ * terminador ('\n' ou o sentinela 0): os laços internos (identificador,
+ * número, espaços, comentário) param nele sem testar o fim do buffer a cada
+ * caractere; só quem atravessa uma quebra de linha confere se chegou ao fim.
+ * Comentários, espaços e strings são pulados em bloco (ver Source.lineEnd).
+ *
+ * Um Scanner também pode percorrer só um trecho do código que termina logo
+ * depois de um '\n' (ver ParallelScanner e StreamScanner): o '\n' faz o papel
+ * de terminador, e uma string que chega aberta ao fim do trecho fica
+ * registrada em openString em vez de virar erro.
  */
 public class Scanner {
 
-    private final String source;
-    private final List<Token> tokens = new ArrayList<>();
+    // --- Classes de caractere: bits testados pelos laços internos ---
+    private static final int DIGIT = 1;
+    private static final int ALPHA = 2;       // letras e '_'
+    private static final int BLANK = 4;       // ' ', '\r', '\t'
+
+    private static final int IDENTIFIER_PART = DIGIT | ALPHA;
+
+    // --- Tipos de despacho de scanToken (0: caractere inesperado) ---
+    private static final int SINGLE = 1;      // token de um caractere
+    private static final int OPERATOR = 2;    // '!', '=', '<', '>' (com ou sem '=')
+    private static final int SLASH_OR_COMMENT = 3;
+    private static final int SPACE = 4;
+    private static final int NEWLINE = 5;
+    private static final int QUOTE = 6;
+    private static final int NUMBER_START = 7;
+    private static final int IDENTIFIER_START = 8;
+
+    // Indexadas por (byte & 0xFF). As 128 entradas ASCII são as que importam;
+    // a metade superior (bytes não-ASCII) fica zerada, o que dispensa testar o sinal.
+    private static final byte[] CLASSES = new byte[256];
+    private static final byte[] KINDS = new byte[256];
+
+    // Tipo do token de um caractere e, para os operadores, da forma com '='.
+    private static final TokenType[] SINGLES = new TokenType[128];
+    private static final TokenType[] WITH_EQUAL = new TokenType[128];
+
+    static {
+        single('(', LEFT_PAREN);
+        single(')', RIGHT_PAREN);
+        single('{', LEFT_BRACE);
+        single('}', RIGHT_BRACE);
+        single(',', COMMA);
+        single('.', DOT);
+        single('-', MINUS);
+        single('+', PLUS);
+        single(';', SEMICOLON);
+        single('*', STAR);
+
+        operator('!', BANG, BANG_EQUAL);
+        operator('=', EQUAL, EQUAL_EQUAL);
+        operator('<', LESS, LESS_EQUAL);
+        operator('>', GREATER, GREATER_EQUAL);
+
+        KINDS['/'] = SLASH_OR_COMMENT;
+        KINDS['"'] = QUOTE;
+
+        for (char c : new char[] {' ', '\r', '\t'}) {
+            CLASSES[c] = BLANK;
+            KINDS[c] = SPACE;
+        }
+        KINDS['\n'] = NEWLINE; // KINDS[0] fica 0: um byte 0 no meio do código é erro
+
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+            KINDS[c] = NUMBER_START;
+        }
+        for (char c = 'a'; c <= 'z'; c++) alpha(c);
+        for (char c = 'A'; c <= 'Z'; c++) alpha(c);
+        alpha('_');
+    }
+
+    private static void single(char c, TokenType type) {
+        KINDS[c] = SINGLE;
+        SINGLES[c] = type;
+    }
+
+    private static void operator(char c, TokenType alone, TokenType withEqual) {
+        KINDS[c] = OPERATOR;
+        SINGLES[c] = alone;
+        WITH_EQUAL[c] = withEqual;
+    }
+
+    private static void alpha(char c) {
+        CLASSES[c] = ALPHA;
+        KINDS[c] = IDENTIFIER_START;
+    }
+
+    private final Source source;
+    // Fim do trecho percorrido: o código inteiro (ver Source: o terminador é o
+    // byte em 'length' ou o '\n' final) ou um bloco que termina num '\n'.
+    private final int end;
+    // Se o trecho pode terminar antes do código (string aberta não é erro).
+    private final boolean partial;
+    private final TokenBuffer tokens;
+    // Erros de um bloco, reportados depois na ordem do arquivo; null: reporta na hora.
+    private final List<ScanError> errors;
+    // Nomes dos identificadores, cada um decodificado uma única vez.
+    private final SymbolTable symbols;
 
     // Ponteiro para o início do lexema atual.
     private int start = 0;
@@ -32,109 +135,179 @@ public class Scanner {
     // Contador de linhas para diagnóstico.
     private int line = 1;
 
+    // Início (e linha) da string que chegou aberta ao fim do bloco; -1 se nenhuma.
+    int openString = -1;
+    int openStringLine;
+
     /**
-     * Palavras reservadas da linguagem Lox.
-     * Esta tabela permite diferenciação rápida entre IDENTIFIER e KEYWORD.
+     * Erro léxico guardado por um Scanner de bloco.
      */
-    private static final Map<String, TokenType> keywords;
-    static {
-        keywords = new HashMap<>();
-        keywords.put("and",    AND);
-        keywords.put("class",  CLASS);
-        keywords.put("else",   ELSE);
-        keywords.put("false",  FALSE);
-        keywords.put("for",    FOR);
-        keywords.put("fun",    FUN);
-        keywords.put("if",     IF);
-        keywords.put("nil",    NIL);
-        keywords.put("or",     OR);
-        keywords.put("print",  PRINT);
-        keywords.put("return", RETURN);
-        keywords.put("super",  SUPER);
-        keywords.put("this",   THIS);
-        keywords.put("true",   TRUE);
-        keywords.put("var",    VAR);
-        keywords.put("while",  WHILE);
-        // Poderia ser transformado em um Map imutável, se desejado.
+    static final class ScanError {
+        final int line;
+        final String message;
+
+        ScanError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
     }
 
     public Scanner(String source) {
+        this(Source.of(source));
+    }
+
+    Scanner(Source source) {
         this.source = source;
+        this.end = source.length;
+        this.partial = false;
+        this.symbols = new SymbolTable();
+        this.tokens = new TokenBuffer(source, symbols, source.length);
+        this.errors = null;
+    }
+
+    /**
+     * Scanner do trecho [from, to), que começa na linha 'line', com os erros
+     * guardados (ver errors). O byte em to - 1 deve ser um '\n' (ou 'to' o fim
+     * do código).
+     */
+    Scanner(Source source, int from, int to, int line) {
+        this.source = source;
+        this.end = to;
+        this.partial = true;
+        this.symbols = new SymbolTable();
+        this.tokens = new TokenBuffer(source, symbols, to - from);
+        this.errors = new ArrayList<>();
+        this.current = from;
+        this.line = line;
+    }
+
+    /**
+     * Como o anterior, mas acrescenta os tokens a 'tokens' (e os nomes à sua
+     * tabela) e reporta os erros na hora (ver StreamScanner).
+     */
+    Scanner(Source source, int from, int to, int line, TokenBuffer tokens) {
+        this.source = source;
+        this.end = to;
+        this.partial = true;
+        this.symbols = tokens.symbols;
+        this.tokens = tokens;
+        this.errors = null;
+        this.current = from;
+        this.line = line;
+    }
+
+    /**
+     * Scanner sobre o arquivo mapeado em memória, sem carregá-lo no heap.
+     */
+    static Scanner map(Path path) throws IOException {
+        return new Scanner(Source.map(path));
     }
 
     /**
      * Método principal do analisador léxico.
      *
      * Percorre todo o código-fonte gerando tokens até encontrar EOF.
-     * Sempre retorna uma lista completa, incluindo o token EOF final.
+     * Sempre retorna a sequência completa, incluindo o token EOF final,
+     * no formato compacto que o Parser consome (ver TokenBuffer).
      */
-    public List<Token> scanTokens() {
-        while (!isAtEnd()) {
+    TokenBuffer scan() {
+        scanRange();
+        tokens.add(EOF, end, 0, line);
+        return tokens;
+    }
+
+    /**
+     * Os tokens do trecho, sem o EOF (usado por ParallelScanner em cada bloco).
+     */
+    TokenBuffer scanRange() {
+        while (current < end) {
             start = current;
             scanToken();
         }
+        return tokens;
+    }
 
-        tokens.add(new Token(EOF, "", null, line));
+    /** Os tokens produzidos até aqui. */
+    TokenBuffer tokens() {
         return tokens;
     }
 
+    /** Linha em que a varredura parou. */
+    int line() {
+        return line;
+    }
+
+    /** Erros guardados de um Scanner de bloco. */
+    List<ScanError> errors() {
+        return errors;
+    }
+
+    /**
+     * Os mesmos tokens de scan(), materializados como objetos Token.
+     */
+    public List<Token> scanTokens() {
+        return scan().toList();
+    }
+
     /**
      * Avalia o caractere atual e determina qual token iniciar.
-     * Implementa exatamente o fluxograma do Capítulo 4.
+     * Implementa o fluxograma do Capítulo 4, despachando pela classe do byte.
      */
     private void scanToken() {
-        char c = advance();
+        byte c = advance();
 
-        switch (c) {
+        switch (KINDS[c & 0xFF]) {
             // Tokens de caractere único
-            case '(': addToken(LEFT_PAREN); break;
-            case ')': addToken(RIGHT_PAREN); break;
-            case '{': addToken(LEFT_BRACE); break;
-            case '}': addToken(RIGHT_BRACE); break;
-            case ',': addToken(COMMA); break;
-            case '.': addToken(DOT); break;
-            case '-': addToken(MINUS); break;
-            case '+': addToken(PLUS); break;
-            case ';': addToken(SEMICOLON); break;
-            case '*': addToken(STAR); break;
+            case SINGLE:
+                addToken(SINGLES[c]);
+                break;
 
             // Operadores compostos (lookahead condicional)
-            case '!': addToken(match('=') ? BANG_EQUAL : BANG); break;
-            case '=': addToken(match('=') ? EQUAL_EQUAL : EQUAL); break;
-            case '<': addToken(match('=') ? LESS_EQUAL : LESS); break;
-            case '>': addToken(match('=') ? GREATER_EQUAL : GREATER); break;
+            case OPERATOR:
+                if (peek() == '=') {
+                    current++;
+                    addToken(WITH_EQUAL[c]);
+                } else {
+                    addToken(SINGLES[c]);
+                }
+                break;
 
             // Comentários e barra
-            case '/':
-                if (match('/')) {
-                    while (peek() != '\n' && !isAtEnd()) advance();
+            case SLASH_OR_COMMENT:
+                if (peek() == '/') {
+                    comment();
                 } else {
                     addToken(SLASH);
                 }
                 break;
 
-            // Whitespace ignorado
-            case ' ':
-            case '\r':
-            case '\t':
+            // Whitespace ignorado: a sequência inteira de uma vez
+            case SPACE:
+                if ((CLASSES[peek() & 0xFF] & BLANK) != 0) current = source.skipBlanks(current);
                 break;
 
-            case '\n':
+            case NEWLINE:
                 line++;
                 break;
 
             // Literais de string (suportam múltiplas linhas)
-            case '"':
+            case QUOTE:
                 string();
                 break;
 
+            case NUMBER_START:
+                number();
+                break;
+
+            case IDENTIFIER_START:
+                identifier();
+                break;
+
             default:
-                if (isDigit(c)) {
-                    number();
-                } else if (isAlpha(c)) {
-                    identifier();
+                if (c < 0) {
+                    unexpectedCodePoint(c);
                 } else {
-                    Lox.error(line, "Unexpected character.");
+                    error("Unexpected character.");
                 }
                 break;
         }
@@ -142,91 +315,173 @@ public class Scanner {
 
     // --- Reconhecimento de tipos específicos ---
 
+    /**
+     * Comentário de linha: avança em bloco até o '\n' (que fica para scanToken)
+     * ou o fim. Um byte 0 antes do fim é só mais um caractere do comentário.
+     */
+    private void comment() {
+        while (true) {
+            current = source.lineEnd(current);
+            if (current >= end || peek() == '\n') return;
+            current++;
+        }
+    }
+
+    /**
+     * O hash do nome (a fórmula de String.hashCode) é acumulado durante a leitura;
+     * palavras reservadas são reconhecidas sobre os próprios bytes (ver keyword).
+     */
     private void identifier() {
-        while (isAlphaNumeric(peek())) advance();
+        int hash = source.at(start);
+        byte c;
+        while ((CLASSES[(c = peek()) & 0xFF] & IDENTIFIER_PART) != 0) {
+            hash = 31 * hash + c;
+            current++;
+        }
 
-        String text = source.substring(start, current);
-        TokenType type = keywords.get(text);
-        if (type == null) type = IDENTIFIER;
+        int length = current - start;
+        TokenType type = keyword(length);
+        if (type != IDENTIFIER) {
+            addToken(type);
+        } else {
+            tokens.addIdentifier(start, symbols.intern(source, start, length, hash), line);
+        }
+    }
 
-        addToken(type);
+    /**
+     * Palavras reservadas da linguagem Lox, reconhecidas pelo primeiro caractere
+     * (e, onde há ambiguidade, pelo segundo) e depois pelo tamanho e pelo restante
+     * do lexema, sem criar um String. É a "trie" escrita à mão do clox [Cap. 16.5].
+     */
+    private TokenType keyword(int length) {
+        switch (source.at(start)) {
+            case 'a': return rest(1, length, "nd", AND);
+            case 'c': return rest(1, length, "lass", CLASS);
+            case 'e': return rest(1, length, "lse", ELSE);
+            case 'f':
+                if (length > 1) {
+                    switch (source.at(start + 1)) {
+                        case 'a': return rest(2, length, "lse", FALSE);
+                        case 'o': return rest(2, length, "r", FOR);
+                        case 'u': return rest(2, length, "n", FUN);
+                    }
+                }
+                break;
+            case 'i': return rest(1, length, "f", IF);
+            case 'n': return rest(1, length, "il", NIL);
+            case 'o': return rest(1, length, "r", OR);
+            case 'p': return rest(1, length, "rint", PRINT);
+            case 'r': return rest(1, length, "eturn", RETURN);
+            case 's': return rest(1, length, "uper", SUPER);
+            case 't':
+                if (length > 1) {
+                    switch (source.at(start + 1)) {
+                        case 'h': return rest(2, length, "is", THIS);
+                        case 'r': return rest(2, length, "ue", TRUE);
+                    }
+                }
+                break;
+            case 'v': return rest(1, length, "ar", VAR);
+            case 'w': return rest(1, length, "hile", WHILE);
+        }
+        return IDENTIFIER;
+    }
+
+    /**
+     * 'type' se o lexema tem exatamente 'offset' caracteres já conferidos seguidos de 'rest'.
+     */
+    private TokenType rest(int offset, int length, String rest, TokenType type) {
+        if (length != offset + rest.length()) return IDENTIFIER;
+        for (int i = 0; i < rest.length(); i++) {
+            if (source.at(start + offset + i) != rest.charAt(i)) return IDENTIFIER;
+        }
+        return type;
     }
 
     private void number() {
-        while (isDigit(peek())) advance();
+        while ((CLASSES[peek() & 0xFF] & DIGIT) != 0) current++;
 
-        if (peek() == '.' && isDigit(peekNext())) {
-            advance(); // Consome '.'
-            while (isDigit(peek())) advance();
+        // O '.' nunca é o terminador, então o byte seguinte sempre existe.
+        if (peek() == '.' && (CLASSES[peekNext() & 0xFF] & DIGIT) != 0) {
+            current++; // Consome '.'
+            while ((CLASSES[peek() & 0xFF] & DIGIT) != 0) current++;
         }
 
-        addToken(NUMBER, Double.parseDouble(source.substring(start, current)));
+        // O valor é calculado por Token.literal() quando o Parser pede.
+        addToken(NUMBER);
     }
 
+    /**
+     * A string pode atravessar linhas e conter qualquer byte. O corpo é pulado
+     * em bloco até o próximo '"', '\n' ou 0; o fim do buffer só é testado nesses.
+     */
     private void string() {
-        while (peek() != '"' && !isAtEnd()) {
-            if (peek() == '\n') line++;
-            advance();
+        int startLine = line;
+        while (true) {
+            current = source.stringStop(current);
+            byte c = peek();
+            if (c == '"' || current >= end) break;
+            if (c == '\n') line++;
+            // O '\n' pode ser o último byte (terminador de um arquivo mapeado ou de um bloco).
+            if (++current >= end) break;
         }
 
-        if (isAtEnd()) {
-            Lox.error(line, "Unterminated string.");
+        if (current >= end) {
+            if (partial) {
+                // Num trecho, a string pode fechar no seguinte: quem divide decide.
+                openString = start;
+                openStringLine = startLine;
+            } else {
+                Lox.error(line, "Unterminated string.");
+            }
             return;
         }
 
-        advance(); // Fecha aspas
+        current++; // Fecha aspas
 
-        String value = source.substring(start + 1, current - 1);
-        addToken(STRING, value);
+        // O valor (lexema sem aspas) é decodificado por Token.literal() quando usado.
+        addToken(STRING);
     }
 
-    // --- Helpers de navegação e lookahead ---
-
-    private boolean match(char expected) {
-        if (isAtEnd()) return false;
-        if (source.charAt(current) != expected) return false;
-        current++;
-        return true;
-    }
-
-    private char peek() {
-        if (isAtEnd()) return '\0';
-        return source.charAt(current);
-    }
-
-    private char peekNext() {
-        if (current + 1 >= source.length()) return '\0';
-        return source.charAt(current + 1);
-    }
-
-    private boolean isAlpha(char c) {
-        return (c >= 'a' && c <= 'z') ||
-               (c >= 'A' && c <= 'Z') ||
-                c == '_';
+    /**
+     * Caractere não-ASCII fora de string ou comentário: consome a sequência UTF-8
+     * inteira e reporta um erro por unidade UTF-16, como o Scanner fazia sobre String
+     * (caracteres fora do BMP, com 4 bytes, são um par surrogate: dois erros).
+     */
+    private void unexpectedCodePoint(byte lead) {
+        int continuation = (lead & 0xE0) == 0xC0 ? 1
+                         : (lead & 0xF0) == 0xE0 ? 2
+                         : (lead & 0xF8) == 0xF0 ? 3 : 0;
+        for (int i = 0; i < continuation && (peek() & 0xC0) == 0x80; i++) current++;
+
+        error("Unexpected character.");
+        if (continuation == 3) error("Unexpected character.");
     }
 
-    private boolean isAlphaNumeric(char c) {
-        return isAlpha(c) || isDigit(c);
-    }
+    // --- Helpers de navegação e lookahead ---
+    // Sem teste de fim: depois de um byte que não é terminador há sempre outro legível.
 
-    private boolean isDigit(char c) {
-        return c >= '0' && c <= '9';
+    private byte peek() {
+        return source.at(current);
     }
 
-    private boolean isAtEnd() {
-        return current >= source.length();
+    private byte peekNext() {
+        return source.at(current + 1);
     }
 
-    private char advance() {
-        return source.charAt(current++);
+    private byte advance() {
+        return source.at(current++);
     }
 
     private void addToken(TokenType type) {
-        addToken(type, null);
+        tokens.add(type, start, current - start, line);
     }
 
-    private void addToken(TokenType type, Object literal) {
-        String text = source.substring(start, current);
-        tokens.add(new Token(type, text, literal, line));
+    private void error(String message) {
+        if (errors != null) {
+            errors.add(new ScanError(line, message));
+        } else {
+            Lox.error(line, message);
+        }
     }
 }
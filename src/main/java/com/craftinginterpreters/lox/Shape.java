@@ -0,0 +1,128 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Shape — Layout compartilhado dos campos de instâncias ("hidden class").
+ *
+ * Um Shape mapeia nomes de propriedades para índices no array de valores de
+ * LoxInstance. Instâncias que recebem os mesmos campos na mesma ordem passam
+ * pela mesma cadeia de Shapes e compartilham os descritores: adicionar um campo
+ * é uma transição (cacheada) para o Shape filho, e a instância guarda apenas
+ * o Shape atual e um Object[] compacto.
+ *
+ * Cada LoxClass tem seu próprio Shape raiz, de modo que um Shape também
+ * identifica a classe da instância.
+ *
+ * Os nomes são os Strings canônicos da SymbolTable e são comparados por identidade.
+ *
+ * Uma instância com mais de MAX_FIELDS campos sai da cadeia e passa para o
+ * Shape DICTIONARY, guardando os campos num mapa próprio (ver LoxInstance):
+ * cada Shape copia os nomes do pai, então uma cadeia sem limite custaria
+ * tempo e memória quadráticos no número de campos.
+ *
+ * Referência: Crafting Interpreters — Cap. 12 (Classes), seção "Properties on instances".
+ */
+final class Shape {
+
+    /** Acima disso, a busca por nome usa um índice em mapa em vez de varredura. */
+    private static final int LINEAR_LIMIT = 8;
+
+    /** Máximo de campos descritos por Shapes; acima disso, modo dicionário. */
+    static final int MAX_FIELDS = 64;
+
+    /**
+     * Shape das instâncias em modo dicionário: não descreve slots nem
+     * identifica a classe, por isso os caches inline nunca o guardam.
+     */
+    static final Shape DICTIONARY = new Shape();
+
+    /** Nomes dos campos, na ordem dos slots. */
+    private final String[] names;
+
+    /** Índice nome → slot, criado só para Shapes grandes. */
+    private final Map<String, Integer> indexes;
+
+    // Transições para Shapes filhos. A primeira fica em campos (caso comum:
+    // todas as instâncias recebem os campos na mesma ordem); as demais no mapa.
+    private String firstName;
+    private Shape firstShape;
+    private Map<String, Shape> transitions;
+
+    /**
+     * Cria um Shape raiz, sem campos.
+     */
+    Shape() {
+        this(new String[0]);
+    }
+
+    private Shape(String[] names) {
+        this.names = names;
+        if (names.length > LINEAR_LIMIT) {
+            indexes = new IdentityHashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                indexes.put(names[i], i);
+            }
+        } else {
+            indexes = null;
+        }
+    }
+
+    /**
+     * Número de campos descritos por este Shape.
+     */
+    int size() {
+        return names.length;
+    }
+
+    /**
+     * Nome do campo guardado no slot dado.
+     */
+    String name(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * Slot do campo com o nome dado, ou -1 se o Shape não o possui.
+     */
+    int slotOf(String name) {
+        if (indexes != null) {
+            Integer slot = indexes.get(name);
+            return slot == null ? -1 : slot;
+        }
+
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == name) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Shape resultante de acrescentar um campo novo (no próximo slot).
+     * A transição é criada uma vez e reaproveitada por todas as instâncias.
+     * Passado MAX_FIELDS, o resultado é DICTIONARY.
+     */
+    Shape withField(String name) {
+        if (this == DICTIONARY || names.length == MAX_FIELDS) return DICTIONARY;
+        if (firstShape != null && firstName == name) return firstShape;
+        if (transitions != null) {
+            Shape next = transitions.get(name);
+            if (next != null) return next;
+        }
+
+        String[] extended = Arrays.copyOf(names, names.length + 1);
+        extended[names.length] = name;
+        Shape next = new Shape(extended);
+
+        if (firstShape == null) {
+            firstName = name;
+            firstShape = next;
+        } else {
+            if (transitions == null) transitions = new IdentityHashMap<>();
+            transitions.put(name, next);
+        }
+        return next;
+    }
+}
@@ -0,0 +1,191 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Source — Código-fonte em bytes UTF-8, lido diretamente pelo Scanner.
+ *
+ * Toda a sintaxe de Lox é ASCII: bytes acima de 0x7F só são válidos dentro de
+ * strings e comentários. Por isso o Scanner trabalha sobre os bytes, sem
+ * decodificar o arquivo, e o texto de um lexema só é montado quando alguém o
+ * pede (Token.lexeme(), Token.literal()).
+ *
+ * Um arquivo é mapeado em memória (MappedByteBuffer), sem cópia para o heap;
+ * um String (REPL, benchmarks) é codificado uma única vez em UTF-8.
+ *
+ * Invariante usada pelo Scanner: o último byte legível do buffer é um
+ * terminador — o sentinela 0 logo depois do fim (bytes.get(length) == 0) ou,
+ * num arquivo mapeado, o '\n' final do próprio arquivo. Assim os laços do
+ * Scanner param sozinhos no fim sem testar o índice a cada byte. Um arquivo
+ * que não termina em '\n' é copiado para o heap com o sentinela.
+ *
+ * Comentários, sequências de espaços e o corpo de strings são percorridos em
+ * bloco (lineEnd, skipBlanks, stringStop): oito bytes por vez, lidos como um
+ * long, com a técnica SWAR ("SIMD dentro de um registrador"); os últimos
+ * bytes antes do fim do buffer vão um a um, parando no terminador.
+ */
+final class Source {
+
+    final ByteBuffer bytes;
+    final int length;
+
+    // Bytes legíveis: o código-fonte mais o sentinela, se houver.
+    private final int limit;
+
+    private Source(ByteBuffer bytes, int length) {
+        // Little-endian: o primeiro byte da palavra é o menos significativo (ver firstByte).
+        this.bytes = bytes.order(ByteOrder.LITTLE_ENDIAN);
+        this.length = length;
+        this.limit = bytes.limit();
+    }
+
+    static Source of(String text) {
+        return terminated(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Os primeiros 'length' bytes do array, sem cópia. O último deve ser '\n'
+     * ou, senão, content[length] deve ser o sentinela 0 (ver StreamScanner).
+     */
+    static Source wrap(byte[] content, int length) {
+        int limit = length > 0 && content[length - 1] == '\n' ? length : length + 1;
+        return new Source(ByteBuffer.wrap(content, 0, limit), length);
+    }
+
+    /**
+     * Copia os bytes para um buffer com o sentinela 0 depois do último.
+     */
+    private static Source terminated(byte[] content) {
+        return new Source(ByteBuffer.wrap(Arrays.copyOf(content, content.length + 1)),
+                content.length);
+    }
+
+    /**
+     * Mapeia o arquivo somente para leitura. O mapeamento continua válido depois
+     * que o canal é fechado e é liberado junto com o buffer.
+     */
+    static Source map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size > 0 && mapped.get((int) size - 1) == '\n') {
+                return new Source(mapped, (int) size);
+            }
+
+            // Sem '\n' final não há terminador no mapeamento: copia com o sentinela.
+            byte[] content = new byte[(int) size];
+            mapped.get(0, content);
+            return terminated(content);
+        }
+    }
+
+    byte at(int index) {
+        return bytes.get(index);
+    }
+
+    // -------------------------------------------------------------------------
+    // Varredura em bloco (SWAR)
+    // -------------------------------------------------------------------------
+
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long QUOTES = 0x2222222222222222L;
+    private static final long SPACES = 0x2020202020202020L;
+    private static final long TABS = 0x0909090909090909L;
+    private static final long RETURNS = 0x0D0D0D0D0D0D0D0DL;
+
+    /**
+     * 0x80 em cada byte nulo da palavra e 0 nos demais. A forma exata (sem o
+     * "borrow" da subtração) não marca bytes vizinhos por engano.
+     */
+    private static long zeros(long word) {
+        return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+    }
+
+    /** 0x80 em cada byte igual ao do padrão (um byte repetido oito vezes). */
+    private static long equal(long word, long pattern) {
+        return zeros(word ^ pattern);
+    }
+
+    /** Posição do primeiro byte marcado em 'found' (não nulo). */
+    private static int firstByte(long found) {
+        return Long.numberOfTrailingZeros(found) >>> 3;
+    }
+
+    /**
+     * Primeiro índice a partir de 'from' com '\n' ou 0 (fim de um comentário).
+     */
+    int lineEnd(int from) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = bytes.getLong(i);
+            long found = equal(word, NEWLINES) | zeros(word);
+            if (found != 0) return i + firstByte(found);
+        }
+        for (byte c = bytes.get(i); c != '\n' && c != 0; c = bytes.get(++i)) { }
+        return i;
+    }
+
+    /**
+     * Primeiro índice a partir de 'from' que não é ' ', '\t' nem '\r'.
+     */
+    int skipBlanks(int from) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = bytes.getLong(i);
+            long blanks = equal(word, SPACES) | equal(word, TABS) | equal(word, RETURNS);
+            long found = ~blanks & ~LOW_BITS;
+            if (found != 0) return i + firstByte(found);
+        }
+        for (byte c = bytes.get(i); c == ' ' || c == '\t' || c == '\r'; c = bytes.get(++i)) { }
+        return i;
+    }
+
+    /**
+     * Primeiro índice a partir de 'from' com '"', '\n' ou 0: onde o laço de uma
+     * string precisa decidir algo (fechar, contar linha, testar o fim).
+     */
+    int stringStop(int from) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = bytes.getLong(i);
+            long found = equal(word, QUOTES) | equal(word, NEWLINES) | zeros(word);
+            if (found != 0) return i + firstByte(found);
+        }
+        for (byte c = bytes.get(i); c != '"' && c != '\n' && c != 0; c = bytes.get(++i)) { }
+        return i;
+    }
+
+    /**
+     * Decodifica o trecho [start, start + count). Trechos só com ASCII (o caso de
+     * todo identificador e operador) viram String sem passar pelo decodificador.
+     */
+    String text(int start, int count) {
+        byte[] chunk;
+        int offset;
+        if (bytes.hasArray()) {
+            chunk = bytes.array();
+            offset = bytes.arrayOffset() + start;
+        } else {
+            chunk = new byte[count];
+            bytes.get(start, chunk);
+            offset = 0;
+        }
+
+        for (int i = offset; i < offset + count; i++) {
+            if (chunk[i] < 0) return new String(chunk, offset, count, StandardCharsets.UTF_8);
+        }
+        return new String(chunk, offset, count, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -25,6 +25,7 @@ abstract class Stmt {
     }
 
     final List<Stmt> statements;
+    int localCount;
   }
   static class Class extends Stmt {
     Class(Token name, List<Stmt.Function> methods) {
@@ -67,6 +68,8 @@ abstract class Stmt {
     final Token name;
     final List<Token> params;
     final List<Stmt> body;
+    int localCount;
+    LazyBody lazy;
   }
   static class If extends Stmt {
     If(Expr condition, Stmt thenBranch, Stmt elseBranch) {
@@ -0,0 +1,215 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * StmtNode — Nós executáveis de declaração (statement).
+ *
+ * Contraparte de ExprNode para Stmt: cada nó executa a si mesmo no frame atual
+ * com execute(frame), com filhos já ligados pelo NodeCompiler.
+ *
+ * Referências:
+ *  - Crafting Interpreters — Cap. 8 (Statements and State)
+ *  - Crafting Interpreters — Cap. 9 (Control Flow)
+ *  - Crafting Interpreters — Cap. 10 (Functions)
+ */
+abstract class StmtNode {
+
+    /**
+     * Conclusão normal de uma declaração (sem 'return').
+     */
+    static final Object NORMAL = new Object();
+
+    /**
+     * Executa a declaração no frame (Environment) atual.
+     * Retorna NORMAL, ou o valor de um 'return' executado (possivelmente nil),
+     * que os blocos e laços repassam até LoxFunction — sem exceções.
+     */
+    abstract Object execute(Environment frame);
+
+    static final class Expression extends StmtNode {
+        private final ExprNode expression;
+
+        Expression(ExprNode expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            expression.evaluate(frame);
+            return NORMAL;
+        }
+    }
+
+    static final class Print extends StmtNode {
+        private final ExprNode expression;
+
+        Print(ExprNode expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            System.out.println(Interpreter.stringify(expression.evaluate(frame)));
+            return NORMAL;
+        }
+    }
+
+    /**
+     * Declaração local (var, fun ou class): ocupa o próximo slot do frame,
+     * na ordem numerada pelo Resolver.
+     */
+    static final class DefineLocal extends StmtNode {
+        private final ExprNode value;
+
+        DefineLocal(ExprNode value) {
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            frame.define(null, value.evaluate(frame));
+            return NORMAL;
+        }
+    }
+
+    /** Declaração global (var, fun ou class) pelo índice na tabela global. */
+    static final class DefineGlobal extends StmtNode {
+        private final Environment globals;
+        private final int slot;
+        private final ExprNode value;
+
+        DefineGlobal(Environment globals, int slot, ExprNode value) {
+            this.globals = globals;
+            this.slot = slot;
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            globals.defineGlobal(slot, value.evaluate(frame));
+            return NORMAL;
+        }
+    }
+
+    /** [Cap. 8] Bloco com escopo próprio: abre um frame com os slots do Resolver. */
+    static final class Block extends StmtNode {
+        private final StmtNode[] statements;
+        private final int localCount;
+
+        Block(StmtNode[] statements, int localCount) {
+            this.statements = statements;
+            this.localCount = localCount;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            Environment environment = new Environment(frame, localCount);
+            for (StmtNode statement : statements) {
+                Object result = statement.execute(environment);
+                if (result != NORMAL) return result;
+            }
+            return NORMAL;
+        }
+    }
+
+    /** Bloco sem declarações: executa no frame atual, sem abrir escopo. */
+    static final class Sequence extends StmtNode {
+        private final StmtNode[] statements;
+
+        Sequence(StmtNode[] statements) {
+            this.statements = statements;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            for (StmtNode statement : statements) {
+                Object result = statement.execute(frame);
+                if (result != NORMAL) return result;
+            }
+            return NORMAL;
+        }
+    }
+
+    static final class If extends StmtNode {
+        private final ExprNode condition;
+        private final StmtNode thenBranch;
+        private final StmtNode elseBranch;
+
+        If(ExprNode condition, StmtNode thenBranch, StmtNode elseBranch) {
+            this.condition = condition;
+            this.thenBranch = thenBranch;
+            this.elseBranch = elseBranch;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            if (Interpreter.isTruthy(condition.evaluate(frame))) {
+                return thenBranch.execute(frame);
+            } else if (elseBranch != null) {
+                return elseBranch.execute(frame);
+            }
+            return NORMAL;
+        }
+    }
+
+    static final class While extends StmtNode {
+        private final ExprNode condition;
+        private final StmtNode body;
+
+        While(ExprNode condition, StmtNode body) {
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            while (Interpreter.isTruthy(condition.evaluate(frame))) {
+                Object result = body.execute(frame);
+                if (result != NORMAL) return result;
+            }
+            return NORMAL;
+        }
+    }
+
+    /** [Cap. 10] Return: o valor sobe como resultado de execute até LoxFunction. */
+    static final class Return extends StmtNode {
+        private final ExprNode value;
+
+        Return(ExprNode value) {
+            this.value = value;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            if (value == null) return null;
+            return value.evaluate(frame);
+        }
+    }
+
+    /**
+     * Corpo de função ainda não analisado (ver LazyBody), único elemento do
+     * array de corpo compartilhado pelas LoxFunction da declaração. Na primeira
+     * execução compila o corpo e põe no seu lugar, no array.
+     */
+    static final class Lazy extends StmtNode {
+        private final Interpreter interpreter;
+        private final Stmt.Function declaration;
+        private final LazyBody lazy;
+        private final StmtNode[] body;
+
+        Lazy(Interpreter interpreter, Stmt.Function declaration, StmtNode[] body) {
+            this.interpreter = interpreter;
+            this.declaration = declaration;
+            this.lazy = declaration.lazy;
+            this.body = body;
+        }
+
+        @Override
+        Object execute(Environment frame) {
+            StmtNode compiled = new Sequence(lazy.compile(interpreter, declaration));
+            body[0] = compiled;
+            // O frame desta chamada foi criado antes de o Resolver contar os locais.
+            frame.reserve(declaration.localCount);
+            return compiled.execute(frame);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * StreamScanner — Análise léxica sob demanda de um código lido em blocos.
+ *
+ * Em vez de ter o código inteiro na memória e varrê-lo de uma vez, lê o canal
+ * em blocos de BLOCK bytes e varre só as linhas completas de cada um, quando
+ * o Parser precisa do próximo token (ver TokenBuffer, modo streaming). O
+ * restante da última linha fica no início da janela e é varrido junto com a
+ * leitura seguinte. Como no ParallelScanner, só uma string de várias linhas
+ * atravessa a divisa: ela é varrida de novo a partir das aspas de abertura.
+ *
+ * A memória do front-end fica limitada à janela de bytes e à de tokens, mais
+ * a AST: o código e a sequência completa de tokens nunca estão na memória.
+ * Uma linha (ou string) maior que a janela a faz crescer.
+ *
+ * Os erros léxicos são reportados quando o bloco é varrido, ou seja,
+ * intercalados com os erros de sintaxe em vez de todos antes deles.
+ */
+final class StreamScanner {
+
+    // Tamanho de cada leitura do canal.
+    static final int BLOCK = 1 << 16;
+
+    private final ReadableByteChannel channel;
+
+    // Bytes lidos; os 'scanned' primeiros já foram varridos. A última posição
+    // é reservada para o sentinela do bloco final (ver Source.wrap).
+    private byte[] window;
+    private int filled = 0;
+    private int scanned = 0;
+    // Linha do primeiro byte ainda não varrido.
+    private int line = 1;
+    private boolean eof = false;
+    private boolean done = false;
+
+    private StreamScanner(ReadableByteChannel channel, int block) {
+        this.channel = channel;
+        this.window = new byte[block + 1];
+    }
+
+    /**
+     * Os tokens do canal, lidos e varridos conforme o Parser avança. Uma falha
+     * de leitura aparece como UncheckedIOException.
+     */
+    static TokenBuffer tokens(ReadableByteChannel channel) {
+        return tokens(channel, BLOCK);
+    }
+
+    /**
+     * Como tokens(channel), com leituras de 'block' bytes.
+     */
+    static TokenBuffer tokens(ReadableByteChannel channel, int block) {
+        return new TokenBuffer(new StreamScanner(channel, block));
+    }
+
+    /**
+     * Varre para 'tokens' as próximas linhas completas, até que ao menos um
+     * token seja acrescentado; no fim do canal, o restante e o EOF.
+     */
+    void next(TokenBuffer tokens) {
+        int before = tokens.size();
+        try {
+            while (tokens.size() == before && !done) {
+                discardScanned();
+                if (filled == capacity()) {
+                    // Uma linha, ou string, maior que a janela.
+                    window = Arrays.copyOf(window, capacity() * 2 + 1);
+                }
+                read();
+
+                if (eof) {
+                    scanLast(tokens);
+                } else {
+                    // Sem '\n' a janela está cheia: a próxima volta a aumenta.
+                    int end = lastNewline() + 1;
+                    if (end > 0) scanLines(tokens, end);
+                }
+            }
+        } catch (IOException error) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    private int capacity() {
+        return window.length - 1;
+    }
+
+    /**
+     * Move os bytes ainda não varridos para o início da janela. Só é feito na
+     * chamada seguinte, quando os tokens do bloco anterior já foram usados.
+     */
+    private void discardScanned() {
+        System.arraycopy(window, scanned, window, 0, filled - scanned);
+        filled -= scanned;
+        scanned = 0;
+    }
+
+    /**
+     * Lê até encher a janela ou chegar ao fim do canal.
+     */
+    private void read() throws IOException {
+        while (filled < capacity()) {
+            int count = channel.read(ByteBuffer.wrap(window, filled, capacity() - filled));
+            if (count < 0) {
+                eof = true;
+                return;
+            }
+            filled += count;
+        }
+    }
+
+    private int lastNewline() {
+        int i = filled - 1;
+        while (i >= 0 && window[i] != '\n') i--;
+        return i;
+    }
+
+    /**
+     * Varre as linhas [0, end); uma string aberta no fim volta para a janela.
+     */
+    private void scanLines(TokenBuffer tokens, int end) {
+        Source block = Source.wrap(window, end);
+        tokens.nextBlock(block);
+        Scanner scanner = new Scanner(block, 0, end, line, tokens);
+        scanner.scanRange();
+
+        if (scanner.openString >= 0) {
+            scanned = scanner.openString;
+            line = scanner.openStringLine;
+        } else {
+            scanned = end;
+            line = scanner.line();
+        }
+    }
+
+    /**
+     * Varre o que sobrou na janela, com o sentinela, e acrescenta o EOF.
+     */
+    private void scanLast(TokenBuffer tokens) {
+        window[filled] = 0;
+        Source block = Source.wrap(window, filled);
+        tokens.nextBlock(block);
+        Scanner scanner = new Scanner(block, 0, filled, line, tokens);
+        scanner.scanRange();
+
+        if (scanner.openString >= 0) {
+            Lox.error(scanner.line(), "Unterminated string.");
+        }
+        tokens.add(TokenType.EOF, filled, 0, scanner.line());
+        scanned = filled;
+        done = true;
+    }
+}
@@ -0,0 +1,124 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+/**
+ * SymbolTable — Tabela de identificadores do Scanner.
+ *
+ * Cada nome distinto recebe um índice e um único String canônico. O Scanner
+ * calcula o hash enquanto percorre o identificador (mesma fórmula de
+ * String.hashCode) e procura o trecho de bytes direto na tabela: um nome que
+ * já apareceu não é decodificado nem alocado de novo.
+ *
+ * O String canônico é global (ver canonical): o mesmo nome em outro arquivo,
+ * em outra linha do REPL ou num literal Java ("init", "clock") é o mesmo
+ * objeto, com o hash já calculado. Por isso os mapas de tempo de execução
+ * indexados por nome (Environment, LoxClass, Shape) comparam por identidade.
+ *
+ * Endereçamento aberto com sondagem linear; 'slots' guarda índice + 1
+ * (0 = vazio) e tem sempre ao menos o dobro do número de símbolos.
+ */
+final class SymbolTable {
+
+    private String[] names = new String[64];
+    private int[] hashes = new int[64];
+    private int[] slots = new int[128];
+    private int count = 0;
+
+    /**
+     * Índice do identificador nos bytes [start, start + length), que devem ser
+     * ASCII; 'hash' é o String.hashCode desse texto.
+     */
+    int intern(Source source, int start, int length, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return add(slot, canonical(source.text(start, length)), hash);
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && matches(names[id], source, start, length)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * As tabelas em sequência: os índices da tabela k passam a começar na soma
+     * dos tamanhos das anteriores. Um nome presente em várias delas aparece
+     * várias vezes, sempre com o mesmo String canônico.
+     */
+    static SymbolTable concat(SymbolTable[] tables, int count) {
+        int total = 0;
+        for (int k = 0; k < count; k++) total += tables[k].count;
+
+        SymbolTable result = new SymbolTable();
+        result.names = new String[Math.max(64, total)];
+        result.hashes = new int[result.names.length];
+        for (int k = 0; k < count; k++) {
+            SymbolTable table = tables[k];
+            System.arraycopy(table.names, 0, result.names, result.count, table.count);
+            System.arraycopy(table.hashes, 0, result.hashes, result.count, table.count);
+            result.count += table.count;
+        }
+        result.rehash(Math.max(128, Integer.highestOneBit(Math.max(1, total)) * 4));
+        return result;
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * O String canônico do nome em todo o processo. A tabela global é a da
+     * própria JVM (String.intern), que já contém os literais do código Java:
+     * findMethod("init") encontra o método declarado no script sem comparar
+     * caracteres. Chamado uma vez por nome distinto em cada scan.
+     */
+    static String canonical(String name) {
+        String symbol = name.intern();
+        symbol.hashCode(); // calcula e guarda o hash antes do primeiro uso
+        return symbol;
+    }
+
+    /** Mistura os bits altos nos baixos, como HashMap.hash. */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, Source source, int start, int length) {
+        if (name.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != source.at(start + i)) return false;
+        }
+        return true;
+    }
+
+    private int add(int slot, String name, int hash) {
+        if (count == names.length) {
+            names = Arrays.copyOf(names, count * 2);
+            hashes = Arrays.copyOf(hashes, count * 2);
+        }
+        int id = count++;
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+
+        if (count * 2 > slots.length) rehash(slots.length * 2);
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        int mask = slots.length - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+}
@@ -12,22 +12,70 @@ class Token {
 
     // [Cap. 4.2] O texto exato (string crua) extraído do código-fonte.
     // Essencial para mensagens de erro, permitindo mostrar exatamente o que o usuário digitou.
-    final String lexeme;
+    // Decodificado de 'source' só no primeiro uso (ver lexeme()).
+    private String lexeme;
 
     // [Cap. 4.2.2] O valor semântico do token (apenas para literais).
     // Ex: Se o lexeme for "123", o literal será um objeto Double com valor 123.0.
     // Para palavras-chave ou pontuação, este valor permanece null.
-    final Object literal;
+    // Nos tokens do Scanner, é calculado a partir do lexema no primeiro uso (ver literal()).
+    private Object literal;
 
     // [Cap. 4.2.3] O número da linha onde o token foi encontrado.
     // Fundamental para o tratamento de erros, indicando a localização do problema.
-    final int line;
+    // Não é final: Document a desloca quando uma edição acrescenta ou remove
+    // linhas antes de uma declaração reaproveitada.
+    int line;
+
+    // Posição do lexema nos bytes UTF-8 do código-fonte (source nulo: lexema já pronto).
+    private final Source source;
+    private final int start;
+    private final int length;
 
     Token(TokenType type, String lexeme, Object literal, int line) {
         this.type = type;
         this.lexeme = lexeme;
         this.literal = literal;
         this.line = line;
+        this.source = null;
+        this.start = 0;
+        this.length = 0;
+    }
+
+    /**
+     * Token cujo texto ainda está nos bytes do código-fonte.
+     */
+    Token(TokenType type, Source source, int start, int length, int line) {
+        this.type = type;
+        this.line = line;
+        this.source = source;
+        this.start = start;
+        this.length = length;
+    }
+
+    String lexeme() {
+        if (lexeme == null) lexeme = source.text(start, length);
+        return lexeme;
+    }
+
+    /**
+     * O valor de um literal é calculado a partir do código-fonte na primeira consulta.
+     */
+    Object literal() {
+        if (literal == null && source != null) literal = valueOf(type, source, start, length);
+        return literal;
+    }
+
+    /**
+     * Valor do literal no trecho [start, start + length): uma STRING é o lexema
+     * sem as aspas; um NUMBER, o Double correspondente. Outros tipos não têm valor.
+     */
+    static Object valueOf(TokenType type, Source source, int start, int length) {
+        switch (type) {
+            case STRING: return source.text(start + 1, length - 2);
+            case NUMBER: return NumberLiteral.parse(source, start, length);
+            default:     return null;
+        }
     }
 
     /**
@@ -37,6 +85,6 @@ class Token {
      */
     @Override
     public String toString() {
-        return type + " " + lexeme + " " + literal;
+        return type + " " + lexeme() + " " + literal();
     }
 }
\ No newline at end of file
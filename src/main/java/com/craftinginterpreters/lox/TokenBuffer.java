@@ -0,0 +1,321 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TokenBuffer — Sequência de tokens em arrays primitivos ("struct of arrays").
+ *
+ * Em vez de um objeto Token (mais um String de lexema) por token, o Scanner
+ * grava tipo, início, tamanho e linha em quatro arrays paralelos: cerca de 13
+ * bytes por token, inclusive para ';' e '('. O Parser consulta os tipos direto
+ * nos arrays e só cria um Token quando precisa guardá-lo na AST (nomes,
+ * operadores) ou reportar um erro; o lexema continua sendo decodificado apenas
+ * quando usado (ver Token.lexeme()).
+ *
+ * A coluna 'values' guarda o tamanho do lexema; para IDENTIFIER, guarda o
+ * índice do nome na SymbolTable do Scanner, de onde sai o lexema já pronto.
+ *
+ * No modo streaming (ver StreamScanner) os arrays guardam só uma janela dos
+ * tokens: os de um bloco do código mais o último do bloco anterior. Os
+ * índices continuam absolutos; quando o Parser pede o token seguinte ao fim
+ * da janela, o próximo bloco é lido e varrido no lugar do atual. Do token
+ * mantido só o tipo e a linha seguem válidos (o Parser não olha mais para
+ * trás que isso), e os Tokens materializados já trazem o lexema pronto, pois
+ * os bytes do bloco são reaproveitados.
+ */
+final class TokenBuffer {
+
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final byte IDENTIFIER = (byte) TokenType.IDENTIFIER.ordinal();
+
+    // Limite da tabela de símbolos no modo streaming (ver nextBlock).
+    private static final int STREAM_SYMBOLS = 1 << 16;
+
+    // Lexema de cada tipo que só tem uma grafia (pontuação, operadores,
+    // palavras reservadas), guardado na primeira vez que é decodificado.
+    private static final String[] FIXED_LEXEMES = new String[TYPES.length];
+
+    // Trocados a cada bloco no modo streaming.
+    Source source;
+    SymbolTable symbols;
+
+    // Modo streaming: de onde vêm os blocos e o índice absoluto da posição 0.
+    private final StreamScanner feed;
+    private int base = 0;
+
+    // Tokens materializados com o lexema já decodificado (modo streaming e
+    // Document): a AST não prende os bytes de um código que será descartado.
+    private boolean eager;
+
+    private byte[] types;
+    private int[] starts;
+    private int[] values;
+    private int[] lines;
+    private int size = 0;
+
+    /**
+     * Buffer para os tokens de 'bytes' bytes de código.
+     */
+    TokenBuffer(Source source, SymbolTable symbols, int bytes) {
+        this(source, symbols, bytes, null);
+    }
+
+    /**
+     * Buffer em modo streaming: os tokens são lidos de 'feed' conforme o Parser avança.
+     */
+    TokenBuffer(StreamScanner feed) {
+        this(null, new SymbolTable(), StreamScanner.BLOCK, feed);
+    }
+
+    private TokenBuffer(Source source, SymbolTable symbols, int bytes, StreamScanner feed) {
+        this.source = source;
+        this.symbols = symbols;
+        this.feed = feed;
+        this.eager = feed != null;
+        // Estimativa: um token a cada ~5 bytes de código; cresce se faltar espaço.
+        int capacity = Math.max(16, bytes / 5);
+        types = new byte[capacity];
+        starts = new int[capacity];
+        values = new int[capacity];
+        lines = new int[capacity];
+    }
+
+    void add(TokenType type, int start, int length, int line) {
+        add((byte) type.ordinal(), start, length, line);
+    }
+
+    void addIdentifier(int start, int symbol, int line) {
+        add(IDENTIFIER, start, symbol, line);
+    }
+
+    private void add(byte type, int start, int value, int line) {
+        if (size == types.length) grow();
+        types[size] = type;
+        starts[size] = start;
+        values[size] = value;
+        lines[size] = line;
+        size++;
+    }
+
+    /**
+     * Buffer com 'size' tokens ainda não preenchidos (ver fill) e espaço para o EOF.
+     */
+    static TokenBuffer sized(Source source, SymbolTable symbols, int size) {
+        TokenBuffer buffer = new TokenBuffer(source, symbols, 0);
+        buffer.grow(size + 1);
+        buffer.size = size;
+        return buffer;
+    }
+
+    /**
+     * Copia os tokens de 'part' (do mesmo Source) para as posições a partir de
+     * 'at', somando 'lineOffset' às linhas e 'symbolOffset' aos índices de
+     * símbolo. Trechos disjuntos podem ser preenchidos em paralelo.
+     */
+    void fill(int at, TokenBuffer part, int lineOffset, int symbolOffset) {
+        int count = part.size;
+        System.arraycopy(part.types, 0, types, at, count);
+        System.arraycopy(part.starts, 0, starts, at, count);
+        System.arraycopy(part.values, 0, values, at, count);
+        System.arraycopy(part.lines, 0, lines, at, count);
+
+        for (int i = at; i < at + count; i++) {
+            lines[i] += lineOffset;
+            if (types[i] == IDENTIFIER) values[i] += symbolOffset;
+        }
+    }
+
+    private void grow() {
+        grow(types.length + (types.length >> 1));
+    }
+
+    private void grow(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        values = Arrays.copyOf(values, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    TokenType type(int index) {
+        return TYPES[types[slot(index)]];
+    }
+
+    int line(int index) {
+        return lines[slot(index)];
+    }
+
+    /**
+     * O nome de um IDENTIFIER, sem materializar o Token (ver Parser, modo
+     * preguiçoso).
+     */
+    String name(int index) {
+        return symbols.name(values[slot(index)]);
+    }
+
+    /**
+     * Materializa o token da posição dada (o lexema continua preguiçoso, exceto
+     * no modo streaming).
+     */
+    Token token(int index) {
+        int slot = slot(index);
+        if (types[slot] == IDENTIFIER) {
+            return new Token(TokenType.IDENTIFIER, symbols.name(values[slot]), null, lines[slot]);
+        }
+        TokenType type = TYPES[types[slot]];
+        if (eager) {
+            return new Token(type, lexeme(type, slot),
+                    Token.valueOf(type, source, starts[slot], values[slot]), lines[slot]);
+        }
+        return new Token(type, source, starts[slot], values[slot], lines[slot]);
+    }
+
+    /**
+     * O lexema já decodificado (ver eager).
+     */
+    private String lexeme(TokenType type, int slot) {
+        if (type == TokenType.STRING || type == TokenType.NUMBER) {
+            return source.text(starts[slot], values[slot]);
+        }
+        String lexeme = FIXED_LEXEMES[type.ordinal()];
+        if (lexeme == null) {
+            // Corrida benigna: todas as threads chegam ao mesmo String canônico.
+            lexeme = SymbolTable.canonical(source.text(starts[slot], values[slot]));
+            FIXED_LEXEMES[type.ordinal()] = lexeme;
+        }
+        return lexeme;
+    }
+
+    /**
+     * Valor de um literal NUMBER/STRING, sem criar o Token.
+     */
+    Object literal(int index) {
+        int slot = slot(index);
+        return Token.valueOf(TYPES[types[slot]], source, starts[slot], values[slot]);
+    }
+
+    /**
+     * Posição nos arrays do token de índice absoluto 'index'. No modo
+     * streaming, o índice logo depois da janela traz o próximo bloco.
+     */
+    private int slot(int index) {
+        int slot = index - base;
+        if (slot == size && feed != null) {
+            refill();
+            slot = index - base;
+        }
+        return slot;
+    }
+
+    /**
+     * Descarta a janela, exceto o último token, e varre o próximo bloco.
+     */
+    private void refill() {
+        if (size > 0) {
+            int last = size - 1;
+            types[0] = types[last];
+            starts[0] = starts[last];
+            values[0] = values[last];
+            lines[0] = lines[last];
+            base += last;
+            size = 1;
+        }
+        feed.next(this);
+    }
+
+    /**
+     * Chamado por StreamScanner antes de varrer um bloco para esta janela. A
+     * tabela de símbolos é mantida entre blocos (um nome repetido não volta a
+     * ser decodificado) até passar de STREAM_SYMBOLS nomes.
+     */
+    void nextBlock(Source block) {
+        source = block;
+        if (symbols.size() > STREAM_SYMBOLS) symbols = new SymbolTable();
+    }
+
+    /**
+     * Passa a materializar os tokens com o lexema já decodificado.
+     */
+    TokenBuffer eager() {
+        eager = true;
+        return this;
+    }
+
+    // -------------------------------------------------------------------------
+    // Posições no código (ver Document)
+    // -------------------------------------------------------------------------
+
+    int start(int index) {
+        return starts[index];
+    }
+
+    /** Posição logo depois do lexema. */
+    int end(int index) {
+        int length = types[index] == IDENTIFIER
+                ? symbols.name(values[index]).length() // nomes são ASCII: 1 byte por caractere
+                : values[index];
+        return starts[index] + length;
+    }
+
+    /**
+     * Índice do primeiro token que começa em 'position' ou depois (o EOF, no fim).
+     */
+    int firstAtOrAfter(int position) {
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Novo buffer sobre 'source' com os tokens [0, from) deste, os de 'middle'
+     * e os [to, size) deste com 'shift' bytes e 'lineShift' linhas somados às
+     * posições. Os três devem usar a mesma SymbolTable.
+     */
+    TokenBuffer splice(Source source, int from, TokenBuffer middle, int to, int shift, int lineShift) {
+        int tail = size - to;
+        TokenBuffer result = new TokenBuffer(source, symbols, 0);
+        result.eager = eager;
+        result.grow(from + middle.size + tail + 1);
+
+        System.arraycopy(types, 0, result.types, 0, from);
+        System.arraycopy(starts, 0, result.starts, 0, from);
+        System.arraycopy(values, 0, result.values, 0, from);
+        System.arraycopy(lines, 0, result.lines, 0, from);
+        result.size = from;
+
+        result.fill(from, middle, 0, 0);
+        result.size += middle.size;
+
+        int at = result.size;
+        System.arraycopy(types, to, result.types, at, tail);
+        System.arraycopy(values, to, result.values, at, tail);
+        for (int i = 0; i < tail; i++) {
+            result.starts[at + i] = starts[to + i] + shift;
+            result.lines[at + i] = lines[to + i] + lineShift;
+        }
+        result.size += tail;
+        return result;
+    }
+
+    /**
+     * Todos os tokens como objetos, para quem precisa da forma de lista.
+     */
+    List<Token> toList() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) tokens.add(token(i));
+        return tokens;
+    }
+}
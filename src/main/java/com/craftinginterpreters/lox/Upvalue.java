@@ -0,0 +1,29 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * Upvalue — Variável local capturada por uma closure da VM.
+ *
+ * Na VM as variáveis locais vivem na pilha de operandos, no frame da função.
+ * Enquanto o frame existe a upvalue está "aberta" e aponta para o slot da
+ * pilha; quando o escopo da variável termina ela é "fechada": o valor passa
+ * para a própria upvalue, que sobrevive ao frame. Só as variáveis capturadas
+ * pagam por isso; as demais continuam sendo um slot da pilha.
+ *
+ * Referência: Crafting Interpreters — Cap. 25 (Closures).
+ */
+final class Upvalue {
+
+    // Posição na pilha da VM enquanto aberta; -1 depois de fechada.
+    int slot;
+
+    // Valor depois de fechada.
+    Object value;
+
+    // Próxima upvalue aberta, com slot menor (lista mantida pela VM).
+    Upvalue next;
+
+    Upvalue(int slot, Upvalue next) {
+        this.slot = slot;
+        this.next = next;
+    }
+}
@@ -0,0 +1,678 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * VM — Máquina virtual de pilha (backend alternativo, ativado com --vm).
+ *
+ * Executa os Chunks gerados pelo BytecodeCompiler em um laço de despacho único,
+ * com pilha de operandos e pilha de frames explícitas: chamadas entre funções
+ * Lox não usam recursão Java nem a interface Visitor.
+ *
+ * As variáveis locais ficam na própria pilha, em slots relativos à base do
+ * frame, sem Environment por chamada ou por bloco; as capturadas por closures
+ * são acessadas por Upvalues, fechadas quando o escopo delas termina.
+ *
+ * Compartilha com o Interpreter a tabela global, as funções nativas e os objetos
+ * de runtime (LoxClass, LoxInstance), produzindo a mesma saída e os mesmos erros.
+ *
+ * Referências:
+ *  - Crafting Interpreters — Cap. 15 (A Virtual Machine)
+ *  - Crafting Interpreters — Cap. 24 (Calls and Functions)
+ *  - Crafting Interpreters — Cap. 25 (Closures)
+ *  - Crafting Interpreters — Cap. 27 (Classes and Instances)
+ */
+class VM {
+
+    /** Frame de chamada: código em execução, posição e base dos slots locais. */
+    private static final class CallFrame {
+        final VmFunction function; // nulo para o script de topo
+        final int[] code;
+        final Object[] constants;
+        final Upvalue[] upvalues;
+        final int base;            // slot 0: a função chamada, ou 'this'
+        int ip = 0;
+
+        CallFrame(VmFunction function, Chunk chunk, Upvalue[] upvalues, int base) {
+            this.function = function;
+            this.code = chunk.code;
+            this.constants = chunk.constants;
+            this.upvalues = upvalues;
+            this.base = base;
+        }
+    }
+
+    private static final Upvalue[] NO_UPVALUES = new Upvalue[0];
+
+    // Limite de frames: uma recursão sem fim vira "Stack overflow." em vez de
+    // crescer a pilha da VM até esgotar a memória (Cap. 24 usa o mesmo erro).
+    static final int FRAMES_MAX = 1 << 16;
+
+    private final Interpreter interpreter;
+    private final Environment globals;
+
+    private Object[] stack = new Object[256];
+    private int sp = 0;
+
+    // Upvalues abertas, da de slot mais alto para a de slot mais baixo.
+    private Upvalue openUpvalues = null;
+
+    private CallFrame[] frames = new CallFrame[64];
+    private int frameCount = 0;
+
+    VM(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        this.globals = interpreter.globals;
+    }
+
+    /**
+     * Compila e executa um programa já resolvido.
+     * Erros de execução são reportados como no Interpreter.
+     */
+    void interpret(List<Stmt> statements) {
+        Chunk script = new BytecodeCompiler(globals).compile(statements);
+        try {
+            push(null);
+            pushFrame(new CallFrame(null, script, NO_UPVALUES, sp - 1), script.maxStack, null);
+            run(frameCount - 1);
+        } catch (RuntimeError error) {
+            // Descarta o estado da execução interrompida (importante no REPL).
+            // O topo real estava em variável local do laço, então limpa tudo.
+            // Closures guardadas em globais continuam com os valores capturados.
+            closeUpvalues(stack, 0);
+            Arrays.fill(stack, null);
+            sp = 0;
+            frameCount = 0;
+            Lox.runtimeError(error);
+        }
+    }
+
+    /**
+     * Chama uma função da VM a partir de código Java (reentrante). O frame
+     * montado por LoxFunction ('this' e argumentos) é copiado para a pilha.
+     */
+    Object call(VmFunction function, Environment environment) {
+        int exitFrame = frameCount;
+        int base = sp;
+        int first = 0;
+        if (function.chunk.method) {
+            push(environment.get(0));
+            first = 1;
+        } else {
+            push(function);
+        }
+        for (int i = 0; i < function.arity(); i++) {
+            push(environment.get(first + i));
+        }
+        pushFrame(new CallFrame(function, function.chunk, function.upvalues, base),
+                function.chunk.maxStack, function.declaration.name);
+        return run(exitFrame);
+    }
+
+    // -------------------------------------------------------------------------
+    // Laço de despacho
+    // -------------------------------------------------------------------------
+
+    /**
+     * Executa até que o frame de índice 'exitFrame' retorne, devolvendo seu valor.
+     *
+     * A pilha e o topo ('sp') ficam em variáveis locais durante o laço, e só são
+     * sincronizados com os campos antes de operações que os usam (chamadas).
+     * O espaço de cada frame é reservado na entrada (Chunk.maxStack), então os
+     * pushes não verificam limites.
+     */
+    private Object run(int exitFrame) {
+        CallFrame frame = frames[frameCount - 1];
+        int[] code = frame.code;
+        Object[] constants = frame.constants;
+        Upvalue[] upvalues = frame.upvalues;
+        int base = frame.base;
+        int ip = frame.ip;
+
+        Object[] stack = this.stack;
+        int sp = this.sp;
+
+        for (;;) {
+            switch (code[ip++]) {
+                case OpCode.CONSTANT:
+                    stack[sp++] = constants[code[ip++]];
+                    break;
+                case OpCode.NIL:
+                    stack[sp++] = null;
+                    break;
+                case OpCode.TRUE:
+                    stack[sp++] = true;
+                    break;
+                case OpCode.FALSE:
+                    stack[sp++] = false;
+                    break;
+                case OpCode.POP:
+                    sp--;
+                    break;
+
+                case OpCode.GET_LOCAL:
+                    stack[sp++] = stack[base + code[ip++]];
+                    break;
+                case OpCode.SET_LOCAL:
+                    stack[base + code[ip++]] = stack[sp - 1];
+                    break;
+                case OpCode.STORE_LOCAL:
+                    stack[base + code[ip++]] = stack[--sp];
+                    break;
+                case OpCode.GET_UPVALUE: {
+                    Upvalue upvalue = upvalues[code[ip++]];
+                    stack[sp++] = upvalue.slot >= 0 ? stack[upvalue.slot] : upvalue.value;
+                    break;
+                }
+                case OpCode.SET_UPVALUE: {
+                    Upvalue upvalue = upvalues[code[ip++]];
+                    if (upvalue.slot >= 0) {
+                        stack[upvalue.slot] = stack[sp - 1];
+                    } else {
+                        upvalue.value = stack[sp - 1];
+                    }
+                    break;
+                }
+                case OpCode.STORE_UPVALUE: {
+                    Upvalue upvalue = upvalues[code[ip++]];
+                    if (upvalue.slot >= 0) {
+                        stack[upvalue.slot] = stack[--sp];
+                    } else {
+                        upvalue.value = stack[--sp];
+                    }
+                    break;
+                }
+                case OpCode.GET_GLOBAL: {
+                    int slot = code[ip++];
+                    int name = code[ip++];
+                    Object value = globals.getGlobalOrUndefined(slot);
+                    if (value == Environment.UNDEFINED) {
+                        throw undefinedVariable(constants[name]);
+                    }
+                    stack[sp++] = value;
+                    break;
+                }
+                case OpCode.SET_GLOBAL: {
+                    int slot = code[ip++];
+                    int name = code[ip++];
+                    if (!globals.assignGlobalIfDefined(slot, stack[sp - 1])) {
+                        throw undefinedVariable(constants[name]);
+                    }
+                    break;
+                }
+                case OpCode.STORE_GLOBAL: {
+                    int slot = code[ip++];
+                    int name = code[ip++];
+                    if (!globals.assignGlobalIfDefined(slot, stack[--sp])) {
+                        throw undefinedVariable(constants[name]);
+                    }
+                    break;
+                }
+                case OpCode.DEFINE_GLOBAL:
+                    globals.defineGlobal(code[ip++], stack[--sp]);
+                    break;
+
+                case OpCode.GET_PROPERTY: {
+                    PropertyCache cache = (PropertyCache) constants[code[ip++]];
+                    Object object = stack[sp - 1];
+                    if (!(object instanceof LoxInstance)) {
+                        throw new RuntimeError(cache.name, "Only instances have properties.");
+                    }
+                    stack[sp - 1] = cache.get((LoxInstance) object);
+                    break;
+                }
+                case OpCode.CHECK_FIELDS: {
+                    PropertyCache cache = (PropertyCache) constants[code[ip++]];
+                    if (!(stack[sp - 1] instanceof LoxInstance)) {
+                        throw new RuntimeError(cache.name, "Only instances have fields.");
+                    }
+                    break;
+                }
+                case OpCode.SET_PROPERTY: {
+                    PropertyCache cache = (PropertyCache) constants[code[ip++]];
+                    Object value = stack[--sp];
+                    Object object = stack[sp - 1];
+                    if (!(object instanceof LoxInstance)) {
+                        throw new RuntimeError(cache.name, "Only instances have fields.");
+                    }
+                    cache.set((LoxInstance) object, value);
+                    stack[sp - 1] = value;
+                    break;
+                }
+
+                case OpCode.EQUAL: {
+                    Object right = stack[--sp];
+                    stack[sp - 1] = Interpreter.isEqual(stack[sp - 1], right);
+                    break;
+                }
+                case OpCode.NOT_EQUAL: {
+                    Object right = stack[--sp];
+                    stack[sp - 1] = !Interpreter.isEqual(stack[sp - 1], right);
+                    break;
+                }
+                case OpCode.GREATER: {
+                    int operator = code[ip++];
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (!(left instanceof Double && right instanceof Double)) {
+                        throw numberOperandsError(constants[operator]);
+                    }
+                    stack[sp - 1] = (double) left > (double) right;
+                    break;
+                }
+                case OpCode.GREATER_EQUAL: {
+                    int operator = code[ip++];
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (!(left instanceof Double && right instanceof Double)) {
+                        throw numberOperandsError(constants[operator]);
+                    }
+                    stack[sp - 1] = (double) left >= (double) right;
+                    break;
+                }
+                case OpCode.LESS: {
+                    int operator = code[ip++];
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (!(left instanceof Double && right instanceof Double)) {
+                        throw numberOperandsError(constants[operator]);
+                    }
+                    stack[sp - 1] = (double) left < (double) right;
+                    break;
+                }
+                case OpCode.LESS_EQUAL: {
+                    int operator = code[ip++];
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (!(left instanceof Double && right instanceof Double)) {
+                        throw numberOperandsError(constants[operator]);
+                    }
+                    stack[sp - 1] = (double) left <= (double) right;
+                    break;
+                }
+                case OpCode.ADD: {
+                    int operator = code[ip++];
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (left instanceof Double && right instanceof Double) {
+                        stack[sp - 1] = (double) left + (double) right;
+                    } else if (left instanceof String && right instanceof String) {
+                        stack[sp - 1] = (String) left + (String) right;
+                    } else {
+                        throw new RuntimeError((Token) constants[operator],
+                                "Operands must be two numbers or two strings.");
+                    }
+                    break;
+                }
+                case OpCode.SUBTRACT: {
+                    int operator = code[ip++];
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (!(left instanceof Double && right instanceof Double)) {
+                        throw numberOperandsError(constants[operator]);
+                    }
+                    stack[sp - 1] = (double) left - (double) right;
+                    break;
+                }
+                case OpCode.MULTIPLY: {
+                    int operator = code[ip++];
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (!(left instanceof Double && right instanceof Double)) {
+                        throw numberOperandsError(constants[operator]);
+                    }
+                    stack[sp - 1] = (double) left * (double) right;
+                    break;
+                }
+                case OpCode.DIVIDE: {
+                    int operator = code[ip++];
+                    Object right = stack[--sp];
+                    Object left = stack[sp - 1];
+                    if (!(left instanceof Double && right instanceof Double)) {
+                        throw numberOperandsError(constants[operator]);
+                    }
+                    stack[sp - 1] = (double) left / (double) right;
+                    break;
+                }
+                case OpCode.NOT:
+                    stack[sp - 1] = !Interpreter.isTruthy(stack[sp - 1]);
+                    break;
+                case OpCode.NEGATE: {
+                    Token operator = (Token) constants[code[ip++]];
+                    Object operand = stack[sp - 1];
+                    if (!(operand instanceof Double)) {
+                        throw new RuntimeError(operator, "Operand must be a number.");
+                    }
+                    stack[sp - 1] = -(double) operand;
+                    break;
+                }
+
+                case OpCode.PRINT:
+                    System.out.println(Interpreter.stringify(stack[--sp]));
+                    break;
+                case OpCode.JUMP: {
+                    int offset = code[ip++];
+                    ip += offset;
+                    break;
+                }
+                case OpCode.JUMP_IF_FALSE: {
+                    int offset = code[ip++];
+                    if (!Interpreter.isTruthy(stack[sp - 1])) ip += offset;
+                    break;
+                }
+                case OpCode.POP_JUMP_IF_FALSE: {
+                    int offset = code[ip++];
+                    if (!Interpreter.isTruthy(stack[--sp])) ip += offset;
+                    break;
+                }
+                case OpCode.JUMP_IF_TRUE: {
+                    int offset = code[ip++];
+                    if (Interpreter.isTruthy(stack[sp - 1])) ip += offset;
+                    break;
+                }
+                case OpCode.LOOP: {
+                    int offset = code[ip++];
+                    ip -= offset;
+                    break;
+                }
+                case OpCode.POP_SCOPE: {
+                    int count = code[ip++];
+                    Arrays.fill(stack, sp - count, sp, null);
+                    sp -= count;
+                    break;
+                }
+                case OpCode.CLOSE_SCOPE: {
+                    int count = code[ip++];
+                    closeUpvalues(stack, sp - count);
+                    Arrays.fill(stack, sp - count, sp, null);
+                    sp -= count;
+                    break;
+                }
+
+                case OpCode.CALL: {
+                    int argCount = code[ip++];
+                    Token paren = (Token) constants[code[ip++]];
+                    frame.ip = ip;
+                    this.sp = sp;
+
+                    boolean pushed = callValue(stack[sp - argCount - 1], argCount, paren);
+                    stack = this.stack;
+                    sp = this.sp;
+                    if (pushed) {
+                        frame = frames[frameCount - 1];
+                        code = frame.code;
+                        constants = frame.constants;
+                        upvalues = frame.upvalues;
+                        base = frame.base;
+                        ip = 0;
+                    }
+                    break;
+                }
+                case OpCode.GET_METHOD: {
+                    PropertyCache cache = (PropertyCache) constants[code[ip++]];
+                    Object object = stack[sp - 1];
+                    if (!(object instanceof LoxInstance)) {
+                        throw new RuntimeError(cache.name, "Only instances have properties.");
+                    }
+                    LoxInstance instance = (LoxInstance) object;
+                    LoxFunction method = cache.method(instance);
+                    if (method != null) {
+                        stack[sp - 1] = method;
+                        stack[sp++] = instance;
+                    } else {
+                        stack[sp - 1] = instance.get(cache.name);
+                        stack[sp++] = null;
+                    }
+                    break;
+                }
+                case OpCode.INVOKE: {
+                    int argCount = code[ip++];
+                    Token paren = (Token) constants[code[ip++]];
+                    frame.ip = ip;
+
+                    // Remove a posição da instância; com um método, ela passa a ser a
+                    // base do frame (no lugar do método), como 'this'.
+                    int receiverSlot = sp - argCount - 1;
+                    Object receiver = stack[receiverSlot];
+                    System.arraycopy(stack, receiverSlot + 1, stack, receiverSlot, argCount);
+                    stack[--sp] = null;
+                    this.sp = sp;
+
+                    boolean pushed;
+                    if (receiver != null) {
+                        VmFunction method = (VmFunction) stack[receiverSlot - 1];
+                        checkArity(method.arity(), argCount, paren);
+                        callFunction(method, (LoxInstance) receiver, argCount, paren);
+                        pushed = true;
+                    } else {
+                        pushed = callValue(stack[receiverSlot - 1], argCount, paren);
+                    }
+                    stack = this.stack;
+                    sp = this.sp;
+                    if (pushed) {
+                        frame = frames[frameCount - 1];
+                        code = frame.code;
+                        constants = frame.constants;
+                        upvalues = frame.upvalues;
+                        base = frame.base;
+                        ip = 0;
+                    }
+                    break;
+                }
+                case OpCode.CLOSURE: {
+                    Chunk function = (Chunk) constants[code[ip++]];
+                    stack[sp++] = new VmFunction(this, function,
+                            captureUpvalues(function, base, upvalues), false);
+                    break;
+                }
+                case OpCode.CLASS: {
+                    String name = (String) constants[code[ip++]];
+                    int methodCount = code[ip++];
+
+                    Map<String, LoxFunction> methods = new IdentityHashMap<>();
+                    for (int i = 0; i < methodCount; i++) {
+                        Chunk method = (Chunk) constants[code[ip++]];
+                        String methodName = method.function.name.lexeme();
+                        methods.put(methodName, new VmFunction(this, method,
+                                captureUpvalues(method, base, upvalues), methodName.equals("init")));
+                    }
+                    stack[sp++] = new LoxClass(name, methods);
+                    break;
+                }
+                case OpCode.RETURN: {
+                    Object result = stack[--sp];
+
+                    // [Cap. 12] Inicializadores sempre retornam 'this' (a base do frame).
+                    VmFunction function = frame.function;
+                    if (function != null && function.isInitializer) {
+                        result = stack[frame.base];
+                    }
+
+                    // Fecha as upvalues dos locais do frame, limpa o frame para não
+                    // reter objetos e descarta a função chamada.
+                    closeUpvalues(stack, base);
+                    Arrays.fill(stack, base, sp, null);
+                    sp = base;
+                    frames[--frameCount] = null;
+                    if (frameCount == exitFrame) {
+                        this.sp = sp;
+                        return result;
+                    }
+
+                    stack[sp++] = result;
+                    frame = frames[frameCount - 1];
+                    code = frame.code;
+                    constants = frame.constants;
+                    upvalues = frame.upvalues;
+                    base = frame.base;
+                    ip = frame.ip;
+                    break;
+                }
+
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[ip - 1]);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Chamadas
+    // -------------------------------------------------------------------------
+
+    /**
+     * Chama o valor na pilha (abaixo dos argumentos).
+     * Retorna true se um novo frame foi empilhado (função ou inicializador da VM);
+     * false se o resultado já está na pilha (nativas, classes sem init).
+     */
+    private boolean callValue(Object callee, int argCount, Token paren) {
+        if (callee instanceof VmFunction function) {
+            checkArity(function.arity(), argCount, paren);
+            callFunction(function, function.receiver, argCount, paren);
+            return true;
+        }
+
+        if (callee instanceof LoxClass klass) {
+            checkArity(klass.arity(), argCount, paren);
+            LoxInstance instance = new LoxInstance(klass);
+            stack[sp - argCount - 1] = instance;
+
+            LoxFunction initializer = klass.findMethod("init");
+            if (initializer == null) return false;
+
+            callFunction((VmFunction) initializer, instance, argCount, paren);
+            return true;
+        }
+
+        if (callee instanceof LoxCallable function) {
+            checkArity(function.arity(), argCount, paren);
+            Object[] arguments = Arrays.copyOfRange(stack, sp - argCount, sp);
+            Arrays.fill(stack, sp - argCount - 1, sp, null);
+            sp -= argCount + 1;
+            push(function.call(interpreter, arguments));
+            return false;
+        }
+
+        throw new RuntimeError(paren, "Can only call functions and classes.");
+    }
+
+    /**
+     * Empilha o frame da chamada. Os argumentos já estão nos slots 1..n; a
+     * função chamada fica no slot 0, e em métodos dá lugar à instância ('this').
+     */
+    private void callFunction(VmFunction function, LoxInstance receiver, int argCount,
+                              Token paren) {
+        int base = sp - argCount - 1;
+        if (receiver != null) stack[base] = receiver;
+        pushFrame(new CallFrame(function, function.chunk, function.upvalues, base),
+                function.chunk.maxStack, paren);
+    }
+
+    private void checkArity(int arity, int argCount, Token paren) {
+        if (argCount != arity) {
+            throw new RuntimeError(paren, "Expected " +
+                    arity + " arguments but got " + argCount + ".");
+        }
+    }
+
+    /**
+     * Empilha o frame e garante espaço na pilha para o pior caso do seu Chunk
+     * (contado a partir da base, com os slots dos locais). 'token' localiza o
+     * erro de estouro (o parêntese da chamada).
+     */
+    private void pushFrame(CallFrame frame, int maxStack, Token token) {
+        if (frameCount == FRAMES_MAX) {
+            throw new RuntimeError(token, "Stack overflow.");
+        }
+        if (frameCount == frames.length) {
+            frames = Arrays.copyOf(frames, frameCount * 2);
+        }
+        frames[frameCount++] = frame;
+
+        int limit = frame.base + maxStack;
+        if (limit >= stack.length) {
+            stack = Arrays.copyOf(stack, Math.max(stack.length * 2, limit + 1));
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Upvalues (Cap. 25)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Upvalues de uma closure criada no frame de base 'base': os locais do
+     * frame que ela captura e as upvalues dele que ela repassa.
+     */
+    private Upvalue[] captureUpvalues(Chunk function, int base, Upvalue[] enclosing) {
+        int[] captures = function.captures;
+        if (captures.length == 0) return NO_UPVALUES;
+
+        Upvalue[] upvalues = new Upvalue[captures.length];
+        for (int i = 0; i < captures.length; i++) {
+            int capture = captures[i];
+            upvalues[i] = capture >= 0 ? openUpvalue(base + capture) : enclosing[~capture];
+        }
+        return upvalues;
+    }
+
+    /**
+     * A upvalue aberta do slot, criada se ainda não existe: closures que
+     * capturam a mesma variável compartilham a mesma Upvalue.
+     */
+    private Upvalue openUpvalue(int slot) {
+        Upvalue previous = null;
+        Upvalue upvalue = openUpvalues;
+        while (upvalue != null && upvalue.slot > slot) {
+            previous = upvalue;
+            upvalue = upvalue.next;
+        }
+        if (upvalue != null && upvalue.slot == slot) return upvalue;
+
+        Upvalue created = new Upvalue(slot, upvalue);
+        if (previous == null) {
+            openUpvalues = created;
+        } else {
+            previous.next = created;
+        }
+        return created;
+    }
+
+    /**
+     * Fecha as upvalues abertas dos slots a partir de 'first': o valor sai
+     * da pilha e passa a viver na Upvalue.
+     */
+    private void closeUpvalues(Object[] stack, int first) {
+        while (openUpvalues != null && openUpvalues.slot >= first) {
+            Upvalue upvalue = openUpvalues;
+            upvalue.value = stack[upvalue.slot];
+            upvalue.slot = -1;
+            openUpvalues = upvalue.next;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Pilha de operandos e verificações
+    // -------------------------------------------------------------------------
+
+    private void push(Object value) {
+        if (sp == stack.length) {
+            stack = Arrays.copyOf(stack, sp * 2);
+        }
+        stack[sp++] = value;
+    }
+
+    private static RuntimeError undefinedVariable(Object name) {
+        Token token = (Token) name;
+        return new RuntimeError(token, "Undefined variable '" + token.lexeme() + "'.");
+    }
+
+    /**
+     * Erro de operandos não numéricos. O token do operador só é lido da
+     * tabela de constantes neste caminho, fora do caminho rápido.
+     */
+    private static RuntimeError numberOperandsError(Object operator) {
+        return new RuntimeError((Token) operator, "Operands must be numbers.");
+    }
+}
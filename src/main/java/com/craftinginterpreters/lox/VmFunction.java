@@ -0,0 +1,47 @@
+package com.craftinginterpreters.lox;
+
+/**
+ * VmFunction.
+ * Função (ou método) criada pela VM: além da declaração herdada de LoxFunction,
+ * carrega o Chunk com o corpo compilado para bytecode e as Upvalues das
+ * variáveis que captura (no lugar do closure Environment, que fica nulo).
+ *
+ * Classes e instâncias são compartilhadas com o Interpreter (LoxClass, LoxInstance),
+ * por isso a VM reutiliza LoxFunction como tipo base dos métodos.
+ *
+ * Referência: Crafting Interpreters — Cap. 24 (Calls and Functions).
+ */
+class VmFunction extends LoxFunction {
+    final Chunk chunk;
+    final Upvalue[] upvalues;
+    private final VM vm;
+
+    VmFunction(VM vm, Chunk chunk, Upvalue[] upvalues, boolean isInitializer) {
+        this(vm, chunk, upvalues, isInitializer, null);
+    }
+
+    private VmFunction(VM vm, Chunk chunk, Upvalue[] upvalues, boolean isInitializer,
+                       LoxInstance receiver) {
+        super(chunk.function, null, null, isInitializer, receiver);
+        this.vm = vm;
+        this.chunk = chunk;
+        this.upvalues = upvalues;
+    }
+
+    /**
+     * [Cap. 12] Igual a LoxFunction.bind, mas preserva o corpo compilado.
+     */
+    @Override
+    LoxFunction bind(LoxInstance instance) {
+        return new VmFunction(vm, chunk, upvalues, isInitializer, instance);
+    }
+
+    /**
+     * Chamadas vindas de fora do laço da VM (ex.: código Java) reentram na VM,
+     * com o frame ('this' e argumentos) já preenchido por LoxFunction.
+     */
+    @Override
+    Object execute(Environment environment) {
+        return vm.call(this, environment);
+    }
+}
@@ -26,6 +26,10 @@ import java.util.List;
  *
  * A definição das gramáticas (Lista de tipos) é traduzida automaticamente
  * para classes Java concretas com construtores, campos e método accept().
+ *
+ * Campos listados após '|' não entram no construtor: são anotações mutáveis
+ * preenchidas por passes posteriores (ex.: profundidade e slot gravados pelo
+ * Resolver), com valor inicial opcional.
  */
 public class GenerateAst {
 
@@ -42,7 +46,7 @@ public class GenerateAst {
         // Cap. 5 + extensões dos Caps. 8–12
         // ---------------------------------------------------------------------
         defineAst(outputDir, "Expr", Arrays.asList(
-            "Assign   : Token name, Expr value",                         // Cap. 8 – Assignment
+            "Assign   : Token name, Expr value | int depth = -1, int slot = -1", // Cap. 8 – Assignment
             "Binary   : Expr left, Token operator, Expr right",          // Cap. 5 – Binary Expression
             "Call     : Expr callee, Token paren, List<Expr> arguments", // Cap. 10 – Function Call
             "Get      : Expr object, Token name",                        // Cap. 12 – Property Access
@@ -50,9 +54,9 @@ public class GenerateAst {
             "Literal  : Object value",                                   // Cap. 5 – Literal
             "Logical  : Expr left, Token operator, Expr right",          // Cap. 9 – Logical Operators
             "Set      : Expr object, Token name, Expr value",            // Cap. 12 – Property Assignment
-            "This     : Token keyword",                                  // Cap. 12 – this
+            "This     : Token keyword | int depth = -1, int slot = -1",  // Cap. 12 – this
             "Unary    : Token operator, Expr right",                     // Cap. 5 – Unary Expression
-            "Variable : Token name"                                      // Cap. 8 – Variable Expression
+            "Variable : Token name | int depth = -1, int slot = -1"      // Cap. 8 – Variable Expression
         ));
 
         // ---------------------------------------------------------------------
@@ -60,10 +64,10 @@ public class GenerateAst {
         // Cap. 8 e extensões dos Caps. 9–12
         // ---------------------------------------------------------------------
         defineAst(outputDir, "Stmt", Arrays.asList(
-            "Block      : List<Stmt> statements",                            // Cap. 8 – Blocks
+            "Block      : List<Stmt> statements | int localCount",           // Cap. 8 – Blocks
             "Class      : Token name, List<Stmt.Function> methods",          // Cap. 12 – Class Declaration
             "Expression : Expr expression",                                  // Cap. 8 – Expression Statement
-            "Function   : Token name, List<Token> params, List<Stmt> body",  // Cap. 10 – Function Declaration
+            "Function   : Token name, List<Token> params, List<Stmt> body | int localCount, LazyBody lazy", // Cap. 10 – Function Declaration
             "If         : Expr condition, Stmt thenBranch, Stmt elseBranch", // Cap. 9 – If Statement
             "Print      : Expr expression",                                  // Cap. 8 – Print Statement
             "Return     : Token keyword, Expr value",                        // Cap. 10 – Return
@@ -98,8 +102,9 @@ public class GenerateAst {
         // Geração das classes concretas
         for (String type : types) {
             String className = type.split(":")[0].trim();
-            String fields = type.split(":")[1].trim();
-            defineType(writer, baseName, className, fields);
+            String[] fields = type.split(":")[1].split("\\|");
+            String annotations = fields.length > 1 ? fields[1].trim() : null;
+            defineType(writer, baseName, className, fields[0].trim(), annotations);
         }
 
         writer.println();
@@ -131,11 +136,12 @@ public class GenerateAst {
     // Inclui:
     //  - Construtor
     //  - Campos imutáveis
+    //  - Anotações mutáveis (opcionais, fora do construtor)
     //  - Implementação do método accept()
     // -------------------------------------------------------------------------
     private static void defineType(
             PrintWriter writer, String baseName,
-            String className, String fieldList) {
+            String className, String fieldList, String annotationList) {
 
         writer.println("  static class " + className + " extends " + baseName + " {");
 
@@ -164,6 +170,12 @@ public class GenerateAst {
             writer.println("    final " + field + ";");
         }
 
+        if (annotationList != null) {
+            for (String annotation : annotationList.split(", ")) {
+                writer.println("    " + annotation + ";");
+            }
+        }
+
         writer.println("  }");
     }
 }
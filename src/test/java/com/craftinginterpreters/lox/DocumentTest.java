@@ -0,0 +1,203 @@
+package com.craftinginterpreters.lox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Document: depois de cada edição, os tokens e as declarações têm de ser os
+ * mesmos de um Document novo aberto com o texto resultante.
+ */
+class DocumentTest {
+
+    private static final String SOURCE = String.join("\n",
+            "var a = \"um\";",
+            "fun f(x) {",
+            "  // comentário",
+            "  if (x) print \"dois\";",
+            "  return x + 1;",
+            "}",
+            "class C {",
+            "  m() { return \"três\"; }",
+            "}",
+            "print f(a);",
+            "");
+
+    private PrintStream err;
+
+    // Os erros de sintaxe das edições intermediárias são esperados.
+    @BeforeEach
+    void silenceErrors() {
+        err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @AfterEach
+    void restoreErrors() {
+        System.setErr(err);
+        Lox.hadError = false;
+    }
+
+    @Test
+    void openAndCloseString() {
+        Document document = new Document(SOURCE);
+        int quote = bytes(SOURCE).indexOf("print f");
+        edit(document, quote, 0, "\"");
+        edit(document, quote, 1, "");
+        edit(document, 0, 0, "\"");
+        edit(document, bytes(document.text()).length(), 0, "\"");
+    }
+
+    @Test
+    void toggleComment() {
+        Document document = new Document(SOURCE);
+        int line = bytes(SOURCE).indexOf("  return");
+        edit(document, line, 0, "//");
+        edit(document, line, 2, "");
+        int comment = bytes(SOURCE).indexOf("// coment");
+        edit(document, comment, 2, "");
+        edit(document, comment, 0, "//");
+    }
+
+    @Test
+    void insertAndRemoveNewlines() {
+        Document document = new Document(SOURCE);
+        int end = bytes(SOURCE).indexOf('\n');
+        edit(document, end, 1, "");
+        edit(document, end, 0, "\n\n\n");
+        edit(document, end + 1, 2, "");
+        int string = bytes(SOURCE).indexOf("\"dois\"") + 2;
+        edit(document, string, 0, "\n");
+        edit(document, string, 1, "");
+    }
+
+    @Test
+    void editAtEnd() {
+        Document document = new Document(SOURCE);
+        int length = bytes(SOURCE).length();
+        edit(document, length, 0, "print a");
+        edit(document, length + 7, 0, ";\n");
+        edit(document, length, 9, "");
+        edit(document, length - 1, 1, "");
+    }
+
+    @Test
+    void danglingIf() {
+        Document document = new Document(SOURCE);
+        int statement = bytes(SOURCE).indexOf("print \"dois\";") + 13;
+        edit(document, statement, 0, " else print 0;");
+        edit(document, statement, 14, "");
+        edit(document, statement, 0, " else");
+        edit(document, statement + 5, 0, " {}");
+
+        int end = bytes(document.text()).length();
+        edit(document, end, 0, "if (a)");
+        edit(document, end + 6, 0, " print 1;");
+        edit(document, end + 15, 0, " else print 2;");
+        edit(document, end + 15, 14, "");
+    }
+
+    @Test
+    void openQuoteIsNotQuadratic() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            source.append("var v").append(i).append(" = ").append(i).append(" + 1;\n");
+        }
+        String text = source.toString();
+        int length = bytes(text).length();
+        Document document = new Document(text);
+
+        // Uma edição comum varre de novo só a sua linha.
+        edit(document, length / 2, 0, "x");
+        assertTrue(document.rescanned() < 64, "rescanned " + document.rescanned());
+
+        // A aspa nova abre uma string até o fim do texto: a edição pode varrer
+        // o resto do texto, mas cada byte uma vez, e não uma vez por linha.
+        edit(document, 100, 0, "\"");
+        assertTrue(document.rescanned() <= length + 64, "rescanned " + document.rescanned());
+
+        // E fechá-la também.
+        edit(document, 100, 1, "");
+        assertTrue(document.rescanned() <= length + 64, "rescanned " + document.rescanned());
+    }
+
+    /** Aplica a edição e compara com um Document aberto com o novo texto. */
+    private static void edit(Document document, int offset, int removed, String inserted) {
+        document.edit(offset, removed, inserted);
+        assertRebuilt(document, new Document(document.text()));
+    }
+
+    private static void assertRebuilt(Document actual, Document expected) {
+        assertEquals(tokens(expected.tokens()), tokens(actual.tokens()));
+        assertEquals(statements(expected.statements()), statements(actual.statements()));
+    }
+
+    // As posições das edições são em bytes UTF-8; o índice de um trecho em
+    // ISO-8859-1 é o seu índice em bytes.
+    private static String bytes(String text) {
+        return new String(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+    }
+
+    private static String tokens(TokenBuffer tokens) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            out.append(tokens.type(i)).append(' ')
+                    .append(tokens.start(i)).append(' ')
+                    .append(tokens.end(i)).append(' ')
+                    .append(tokens.line(i)).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String statements(List<Stmt> statements) {
+        StringBuilder out = new StringBuilder();
+        for (Stmt statement : statements) {
+            dump(statement, out);
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /** Escreve uma AST campo a campo (os campos finais dos nós Expr e Stmt). */
+    private static void dump(Object node, StringBuilder out) {
+        if (node instanceof Token) {
+            Token token = (Token) node;
+            out.append(token.type).append(' ').append(token.lexeme())
+                    .append(' ').append(token.literal()).append(" @").append(token.line);
+        } else if (node instanceof List) {
+            out.append('[');
+            for (Object element : (List<?>) node) {
+                dump(element, out);
+                out.append(',');
+            }
+            out.append(']');
+        } else if (node instanceof Expr || node instanceof Stmt) {
+            out.append(node.getClass().getSimpleName()).append('{');
+            for (Field field : node.getClass().getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)) continue;
+                field.setAccessible(true);
+                out.append(field.getName()).append('=');
+                try {
+                    dump(field.get(node), out);
+                } catch (IllegalAccessException e) {
+                    throw new AssertionError(e);
+                }
+                out.append(';');
+            }
+            out.append('}');
+        } else {
+            out.append(node);
+        }
+    }
+}
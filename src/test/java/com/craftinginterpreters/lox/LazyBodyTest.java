@@ -0,0 +1,113 @@
+package com.craftinginterpreters.lox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Modo preguiçoso: os erros dos corpos nunca chamados aparecem ao carregar,
+ * iguais e na mesma ordem que no parse normal.
+ */
+class LazyBodyTest {
+
+    private PrintStream err;
+
+    @BeforeEach
+    void saveErrors() {
+        err = System.err;
+    }
+
+    @AfterEach
+    void restoreErrors() {
+        System.setErr(err);
+        Lox.hadError = false;
+    }
+
+    @Test
+    void syntaxErrorInUncalledBody() {
+        String source = String.join("\n",
+                "print \"antes\";",
+                "fun f() {",
+                "  print 1",
+                "}",
+                "print \"depois\";",
+                "");
+        String errors = assertSameErrors(source);
+        assertTrue(errors.startsWith("[line 4] Error: Expect ';' after value."), errors);
+    }
+
+    @Test
+    void resolutionErrorsInUncalledBodies() {
+        String source = String.join("\n",
+                "class A {",
+                "  init() { return 1; }",
+                "  m() { fun g() { return this; } return g; }",
+                "}",
+                "fun f(a, a) { var b = b; { var c = 1; var c = c; } }",
+                "fun g() {",
+                "  print this;",
+                "  var x = x",
+                "    .y = this;",
+                "  for (;;",
+                "       this)",
+                "    print this;",
+                "}",
+                "fun h() { class B { init() { fun q() { return 2; } return; } } var B; }",
+                "return;",
+                "");
+        String errors = assertSameErrors(source);
+        assertTrue(errors.contains("Can't return a value from an initializer."), errors);
+        assertTrue(errors.contains("Can't return from top-level code."), errors);
+    }
+
+    @Test
+    void validBodiesStayUnparsed() {
+        String source = String.join("\n",
+                "fun f(a) { var b = a; fun c(x) { return x + b; } return c(1); }",
+                "class P { init(x) { this.x = x; return; } get() { return this.x; } }",
+                "fun g() { var a = 1; { var b = a; var a = b; } }",
+                "");
+        assertEquals("", assertSameErrors(source));
+
+        List<Stmt> statements = parse(source, true);
+        assertTrue(((Stmt.Function) statements.get(0)).body.isEmpty());
+        assertTrue(((Stmt.Function) statements.get(0)).lazy != null);
+    }
+
+    /** Os erros com e sem o modo preguiçoso; devolve os do parse normal. */
+    private static String assertSameErrors(String source) {
+        String eager = errors(source, false);
+        assertEquals(eager, errors(source, true));
+        return eager;
+    }
+
+    // Como Lox.run: o Resolver só roda se não houve erro de sintaxe.
+    private static String errors(String source, boolean lazy) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(out, true, StandardCharsets.UTF_8));
+        try {
+            Lox.hadError = false;
+            List<Stmt> statements = parse(source, lazy);
+            if (!Lox.hadError) new Resolver(new Interpreter()).resolve(statements);
+        } finally {
+            System.setErr(err);
+            Lox.hadError = false;
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static List<Stmt> parse(String source, boolean lazy) {
+        Parser parser = new Parser(ParallelScanner.scan(Source.of(source)));
+        if (lazy) parser.lazy();
+        return parser.parse();
+    }
+}
@@ -0,0 +1,84 @@
+package com.craftinginterpreters.lox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Shape e LoxInstance: campos em Shapes compartilhados até Shape.MAX_FIELDS,
+ * e num mapa próprio da instância (modo dicionário) depois disso.
+ */
+class ShapeTest {
+
+    private static final int FIELDS = 70_000;
+
+    @Test
+    void manyFieldsOnOneInstance() {
+        LoxClass klass = new LoxClass("A", new HashMap<>());
+        LoxInstance instance = new LoxInstance(klass);
+        Token[] names = names(FIELDS);
+        for (int i = 0; i < FIELDS; i++) {
+            instance.set(names[i], (double) i);
+        }
+
+        assertSame(Shape.DICTIONARY, instance.shape);
+        for (int i = 0; i < FIELDS; i++) {
+            assertEquals((double) i, instance.get(names[i]));
+        }
+        instance.set(names[0], null);
+        assertNull(instance.get(names[0]));
+        assertTrue(klass.fieldCapacity <= Shape.MAX_FIELDS);
+    }
+
+    @Test
+    void instancesShareShapesUpToTheLimit() {
+        LoxClass klass = new LoxClass("A", new HashMap<>());
+        Token[] names = names(Shape.MAX_FIELDS + 1);
+        LoxInstance first = new LoxInstance(klass);
+        LoxInstance second = new LoxInstance(klass);
+        for (int i = 0; i < Shape.MAX_FIELDS; i++) {
+            first.set(names[i], (double) i);
+            second.set(names[i], (double) i);
+        }
+
+        assertEquals(Shape.MAX_FIELDS, first.shape.size());
+        assertSame(first.shape, second.shape);
+
+        second.set(names[Shape.MAX_FIELDS], "mais um");
+        assertSame(Shape.DICTIONARY, second.shape);
+        assertEquals((double) 3, second.get(names[3]));
+        assertEquals("mais um", second.get(names[Shape.MAX_FIELDS]));
+        assertEquals(Shape.MAX_FIELDS, first.shape.size());
+    }
+
+    @Test
+    void cachesSkipDictionaryInstances() {
+        LoxClass klass = new LoxClass("A", new HashMap<>());
+        LoxInstance instance = new LoxInstance(klass);
+        Token[] names = names(FIELDS);
+        for (int i = 0; i < FIELDS; i++) {
+            new PropertyCache(names[i], true).set(instance, (double) i);
+        }
+
+        assertSame(Shape.DICTIONARY, instance.shape);
+        PropertyCache get = new PropertyCache(names[FIELDS - 1], false);
+        for (int i = 0; i < 3; i++) {
+            assertEquals((double) (FIELDS - 1), get.get(instance));
+        }
+        assertEquals(0, get.hits);
+    }
+
+    // O mesmo Token (e o mesmo String) em cada escrita e leitura do nome.
+    private static Token[] names(int count) {
+        Token[] names = new Token[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = new Token(TokenType.IDENTIFIER, "f" + i, null, 1);
+        }
+        return names;
+    }
+}